@@ -0,0 +1,94 @@
+package warehouse;
+
+/**
+ * 
+ * @author Ted Herman
+ * A local class just to supply addresses
+ * for orders in the Orders component
+ *
+ */
+class Address {
+	
+  SimRandom SR;
+  private StringBuilder text;  // reused for each address made
+  private static final String[] baseNames = {"Park Street",
+			"Main Street", "Washington Boulevard",
+			"Third Street", "Park Road",
+			"Maple Street", "Hill Road"};
+  private static final String[] baseFirstNames = {"Dakota", "Emma",
+			"Julian", "Nigella", "Will", "Asti", "Lee",
+			"Pat", "Mavis", "Jerome", "Lilly", "Tess"};
+  private static final String[] baseLastNames = {"Parker","Mason",
+			"Smith","Wright","Jefferson","Iqbal",
+			"Owens","Lafleur","Metselen","Vinceroy",
+			"Saville","Troitski","Andrews"};
+  private static final String[] baseState = {"IA","NE","MO",
+			"IL","KS","MN","SD","AR","OK","TX"};
+  private static final String[] baseCity = {"Springfield","Clinton",
+			"Madison","Franklin","Chester","Marion",
+			"Greenville","Salem","Anytown","Hope"};
+  
+  /**
+   * @author Ted Herman
+   * @param SR is SimRandom object, so that all the random
+   * choices by methods of Address will be predictably random
+   */
+  public Address(SimRandom SR) {
+	this.SR = SR;
+	text = new StringBuilder(80);
+    }
+
+  /**
+   * @author Ted Herman
+   * @return String containing a random address for an order;
+   * the parts are appended to one reused StringBuilder, so the
+   * only new object is the String returned
+   */
+  public String randomAddress() {
+	text.setLength(0);
+	text.append(pick(baseFirstNames)).append(' ');
+	text.append(pick(baseLastNames)).append('\n');
+	text.append(randomStreetNumber()).append(' ');
+	text.append(pick(baseNames)).append('\n');
+	text.append(pick(baseCity)).append(' ');
+	text.append(pick(baseState));
+	for (int i=0; i<6; i++) text.append((char)('0'+SR.nextInt(10)));  // zip code
+	return text.toString();
+    }
+  /**
+   * @return String containing an address made from the random
+   * number bits (one draw for all the parts, for generating
+   * orders at a high rate)
+   */
+  public String randomAddress(long bits) {
+	bits >>>= 1;  // not negative
+	text.setLength(0);
+	text.append(baseFirstNames[(int)(bits % baseFirstNames.length)]).append(' ');
+	bits /= baseFirstNames.length;
+	text.append(baseLastNames[(int)(bits % baseLastNames.length)]).append('\n');
+	bits /= baseLastNames.length;
+	text.append(1+bits%998).append(' ');
+	bits /= 998;
+	text.append(baseNames[(int)(bits % baseNames.length)]).append('\n');
+	bits /= baseNames.length;
+	text.append(baseCity[(int)(bits % baseCity.length)]).append(' ');
+	bits /= baseCity.length;
+	text.append(baseState[(int)(bits % baseState.length)]);
+	bits /= baseState.length;
+	for (int i=0; i<6; i++, bits /= 10) text.append((char)('0'+bits%10));  // zip code
+	return text.toString();
+    }
+  /**
+   * @return one of the strings of names, at random
+   */
+  private String pick(String[] names) {
+	return names[SR.nextInt(names.length)];
+    }
+  /**
+   * @author Ted Herman
+   * @return an integer in the range [1,999] for street address
+   */
+  private int randomStreetNumber () {
+	return 1+SR.nextInt(998);
+    }
+  }
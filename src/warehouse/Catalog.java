@@ -0,0 +1,252 @@
+package warehouse;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ *
+ * Catalog is the table of SKUs the warehouse knows about. Each SKU
+ * number gets a dense index (0, 1, 2, ... in the order SKUs are
+ * added), so per-SKU data can be kept in plain arrays indexed by it,
+ * and each SKU's description is kept once, in one shared table, for
+ * every Item of that SKU to refer to. Items, orders and Inventory
+ * only need the SKU number; the rest is looked up here.
+ *
+ * The standard catalog holds the items of CatItem.catalog. Bigger
+ * catalogs come from a text file, with one SKU per line, like this:
+ *
+ *   # SKU number, then its description
+ *   547840,1-Cup Coffee and Espresso Maker
+ *   150644	11lb Kitchen Scale
+ *
+ * where the number and description are split by a comma or a tab.
+ * The file is memory mapped WINDOW bytes at a time and parsed
+ * straight out of the mapping: numbers are parsed from the bytes,
+ * and description bytes are copied into one byte pool, so no String
+ * is made per line. A description becomes a String only when it is
+ * first asked for (and then that one String is shared). The heap
+ * holds only the tables, however big the file is.
+ *
+ */
+public class Catalog {
+  static final int WINDOW = 1<<26;  // most bytes of the file mapped at once
+
+  private int[] skus;             // index -> SKU number
+  private String[] descriptions;  // index -> text, once it has been made
+  private int[] textat;           // index -> start of its text in pool, or -1
+  private int[] textlength;       // index -> bytes of its text in pool
+  private byte[] pool;            // UTF-8 text of descriptions read from files
+  private int poolsize;
+  private IntIntMap indices;      // SKU number -> index
+  private int size;
+  private static Catalog standard;
+
+  public Catalog(int expected) {
+	expected = Math.max(expected,16);
+	skus = new int[expected];
+	descriptions = new String[expected];
+	textat = new int[expected];
+	textlength = new int[expected];
+	pool = new byte[0];
+	indices = new IntIntMap(expected);
+	size = 0;
+    }
+
+  /**
+   * @return the standard catalog (made on first use)
+   */
+  public static Catalog standard() {
+	if (standard == null) {
+	  Catalog c = new Catalog(CatItem.catalog.length);
+	  for (CatItem e: CatItem.catalog) c.add(e.id,e.description);
+	  standard = c;
+	  }
+	return standard;
+    }
+  /**
+   * @return a Catalog with the same SKUs, indices and (shared)
+   * descriptions, which can be added to without changing this one
+   */
+  public Catalog copy() {
+	Catalog c = new Catalog(size);
+	for (int k=0; k<size; k++) c.add(skus[k],description(k));
+	return c;
+    }
+
+  /**
+   * Add SKU number sku, unless it is already here
+   * @return its index
+   */
+  public int add(int sku, String description) {
+	int k = index(sku);
+	if (k >= 0) return k;
+	k = append(sku);
+	descriptions[k] = description;
+	return k;
+    }
+  /**
+   * local method to add SKU number sku, unless it is already
+   * here, with the description in bytes [from,from+length)
+   * of buffer b
+   */
+  private void add(int sku, ByteBuffer b, int from, int length) {
+	if (index(sku) >= 0) return;
+	int k = append(sku);
+	if (length == 0) return;
+	if (poolsize+length > pool.length) {
+	  long room = Math.max(Math.max(pool.length+pool.length/2L,4096),(long)poolsize+length);
+	  pool = Arrays.copyOf(pool,(int)Math.min(room,Integer.MAX_VALUE-8));
+	  }
+	for (int i=0; i<length; i++) pool[poolsize+i] = b.get(from+i);
+	textat[k] = poolsize;
+	textlength[k] = length;
+	poolsize += length;
+    }
+  /**
+   * local method to give new SKU number sku the next index,
+   * with no description yet
+   */
+  private int append(int sku) {
+	if (size == skus.length) {
+	  skus = Arrays.copyOf(skus,2*size);
+	  descriptions = Arrays.copyOf(descriptions,2*size);
+	  textat = Arrays.copyOf(textat,2*size);
+	  textlength = Arrays.copyOf(textlength,2*size);
+	  }
+	skus[size] = sku;
+	textat[size] = -1;
+	indices.put(sku,size);
+	return size++;
+    }
+  /**
+   * @return number of SKUs
+   */
+  public int size() { return size; }
+  /**
+   * @return index of SKU number sku, or -1 if it is not here
+   */
+  public int index(int sku) { return indices.get(sku,-1); }
+  /**
+   * @return SKU number at index k
+   */
+  public int sku(int k) { return skus[k]; }
+  /**
+   * @return description at index k
+   */
+  public String description(int k) {
+	String d = descriptions[k];
+	if (d == null && textat[k] >= 0) {
+	  d = new String(pool,textat[k],textlength[k],StandardCharsets.UTF_8);
+	  descriptions[k] = d;
+	  }
+	return d;
+    }
+  /**
+   * @return description of SKU number sku, or null
+   */
+  public String describe(int sku) {
+	int k = index(sku);
+	return (k < 0) ? null : description(k);
+    }
+  /**
+   * @return a new Item of the SKU at index k
+   */
+  public Item item(int k) {
+	return new Item(skus[k],description(k));
+    }
+
+  /**
+   * Make a Catalog from a catalog file
+   * @param filename is the catalog file
+   */
+  public static Catalog load(String filename) throws IOException {
+	try (FileChannel ch = FileChannel.open(Paths.get(filename),StandardOpenOption.READ)) {
+	  return read(ch);
+	  }
+    }
+  /**
+   * Make a Catalog from a catalog file, one window at a time;
+   * each window but the last ends after its last newline, and
+   * the next window starts there
+   */
+  public static Catalog read(FileChannel ch) throws IOException {
+	return read(ch,WINDOW);
+    }
+  static Catalog read(FileChannel ch, int window) throws IOException {
+	long size = ch.size();
+	Catalog c = new Catalog((int)Math.min(size/32,1<<20));
+	long at = 0;
+	int line = 0;
+	while (at < size) {
+	  long length = Math.min(window,size-at);
+	  MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY,at,length);
+	  int end = (int)length;
+	  if (at+length < size) {
+		while (end > 0 && map.get(end-1) != '\n') end--;
+		if (end == 0) throw new IllegalArgumentException("line "+(line+1)+": too long");
+	    }
+	  line = c.parse(map,end,line);
+	  at += end;
+	  }
+	c.pool = Arrays.copyOf(c.pool,c.poolsize);  // drop the room left for growth
+	return c;
+    }
+  /**
+   * local method to parse the lines in bytes [0,end) of buffer b
+   * @param line is the number of lines before b
+   * @return the number of lines up to end
+   */
+  private int parse(ByteBuffer b, int end, int line) {
+	int i = 0;
+	while (i < end) {
+	  line++;
+	  int eol = i;
+	  while (eol < end && b.get(eol) != '\n') eol++;
+	  int stop = eol;
+	  if (stop > i && b.get(stop-1) == '\r') stop--;
+	  parseLine(b,i,stop,line);
+	  i = eol+1;
+	  }
+	return line;
+    }
+  /**
+   * local method to parse one line, bytes [i,stop) of buffer b
+   */
+  private void parseLine(ByteBuffer b, int i, int stop, int line) {
+	while (i < stop && (b.get(i) == ' ' || b.get(i) == '\t')) i++;
+	if (i == stop || b.get(i) == '#') return;  // blank or comment
+	boolean negative = b.get(i) == '-';
+	if (negative) i++;
+	long sku = 0;
+	int digits = 0;
+	for (; i < stop && b.get(i) >= '0' && b.get(i) <= '9'; i++, digits++) {
+	  sku = 10*sku + (b.get(i)-'0');
+	  if (sku > Integer.MAX_VALUE) throw new IllegalArgumentException("line "+line+": bad SKU number");
+	  }
+	if (digits == 0) throw new IllegalArgumentException("line "+line+": bad SKU number");
+	if (i < stop && b.get(i) != ',' && b.get(i) != '\t')
+	  throw new IllegalArgumentException("line "+line+": no comma after SKU number");
+	if (i < stop) i++;
+	add((int)(negative ? -sku : sku),b,i,stop-i);
+    }
+
+  /**
+   * Write this Catalog as a catalog file
+   */
+  public void save(String filename) throws IOException {
+	try (Writer out = new BufferedWriter(new OutputStreamWriter(
+			new FileOutputStream(filename),StandardCharsets.UTF_8),1<<16)) {
+	  for (int k=0; k<size; k++) {
+		out.write(Integer.toString(skus[k]));
+		out.write(',');
+		String d = description(k);
+		if (d != null) out.write(d);
+		out.write('\n');
+		}
+	  }
+    }
+  }
@@ -0,0 +1,467 @@
+package warehouse;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ *
+ * ColumnarInventory is an Inventory for warehouses with millions of
+ * units. Instead of one Item object per unit, it keeps each fact
+ * about a unit in a column: unit u is of the SKU at Catalog index
+ * skus[u], is on shelf number shelfof[u], and is in state states[u].
+ * Keeping the Catalog index rather than the SKU number means the
+ * per-SKU tables are plain arrays, and comparing units is comparing
+ * two ints; descriptions are only looked up when an Item is made.
+ *
+ * The units on one shelf are chained together by more columns (next
+ * and previous unit), and so are the units of one SKU on one shelf,
+ * which are called a holding. Each shelf has a small map from Catalog
+ * index to its holding of that SKU (like ShelfStock's), and the
+ * holdings of one SKU are chained too, so finding a SKU looks at the
+ * shelves that have it and never at its units, and adding, reserving
+ * and removing a unit are constant time. That is 25 bytes per unit
+ * with no object headers and nothing for the garbage collector to
+ * trace, and the columns can even live off the heap (in direct
+ * ByteBuffers). Item objects are made only when a method has to hand
+ * one out.
+ *
+ * A reserved unit is still in its shelf's chain but not in its
+ * holding, so it is not found or counted. Slots of removed units are
+ * reused, through a free list that is chained by the shelf-next
+ * column, and so are the numbers of holdings that run out.
+ *
+ */
+public class ColumnarInventory implements Inventory {
+  static final byte FREE = 0, ONSHELF = 1, RESERVED = 2;
+  static final int NONE = -1;
+
+  SimRandom randomsource;
+  Floor floor;
+  final boolean offheap;  // true if the columns are direct ByteBuffers
+
+  // the columns, by unit number
+  private ByteBuffer skus;       // int: Catalog index of the SKU
+  private ByteBuffer shelfof;    // int: shelf number
+  private ByteBuffer states;     // byte: FREE, ONSHELF or RESERVED
+  private ByteBuffer shelfnext, shelfprev;  // int: chain of a shelf's units
+  private ByteBuffer pairnext, pairprev;    // int: chain of a holding's units
+  private int capacity;  // units the columns have room for
+  private int used;      // unit numbers handed out so far
+  private int free;      // first unit of the free list, or NONE
+
+  // shelves are numbered in the order Inventory first sees them
+  private List<Shelf> shelflist;
+  private IntIntMap shelfnumber;  // floor index of home -> shelf number
+  private int[] shelfhead;        // first unit on each shelf, or NONE
+  private int[] shelfsize;        // number of units on each shelf
+  private int[] shelfcost;        // steps from each shelf's home to the Picker
+  private IntIntMap[] shelfskus;  // per shelf: Catalog index -> holding of it there
+
+  // holdings (units of one SKU on one shelf), by holding number
+  private int[] holdshelf;        // shelf number
+  private int[] holdfirst;        // first unit
+  private int[] holdnext, holdprev;  // chain of a SKU's holdings
+  private int holdings;           // holding numbers handed out so far
+  private int freeholding;        // first of the free holdings, or NONE
+
+  private Catalog catalog;        // the SKUs, and their shared descriptions
+  private int[] skuhead;          // Catalog index -> first holding of the SKU, or NONE
+  private int[] stockcounts;      // Catalog index -> unreserved units
+  private IdentityHashMap<Item,Integer> claimed;  // reserved Item -> its unit
+  private int units;              // unreserved units in all
+
+  /**
+   * Constructor of ColumnarInventory, which puts the same catalog
+   * items on the same random shelves as MockInventory does
+   * @param floor
+   * @param rand is a SimRandom for predictable randomness
+   */
+  public ColumnarInventory(Floor floor, SimRandom rand) {
+	this(floor,rand,false,1024);
+	for (int i=0;i<catalog.size();i++) {
+	  int times = 1+randomsource.nextInt(4);
+	  for (int j=0;j<times;j++) {
+		Point p = floor.randomInShelfArea();
+		addItem(catalog.sku(i),(Shelf)floor.getCell(p).getContents());
+	    }
+	  }
+    }
+  /**
+   * Constructor of an empty ColumnarInventory
+   * @param offheap is true to keep the columns outside the heap
+   * @param capacity is how many units to make room for at first
+   */
+  public ColumnarInventory(Floor floor, SimRandom rand, boolean offheap, int capacity) {
+	this.floor = floor;
+	randomsource = rand;
+	this.offheap = offheap;
+	this.capacity = Math.max(capacity,16);
+	skus = column(4*this.capacity);
+	shelfof = column(4*this.capacity);
+	states = column(this.capacity);
+	shelfnext = column(4*this.capacity);
+	shelfprev = column(4*this.capacity);
+	pairnext = column(4*this.capacity);
+	pairprev = column(4*this.capacity);
+	used = 0;
+	free = NONE;
+	shelflist = new ArrayList<Shelf>();
+	shelfnumber = new IntIntMap();
+	shelfhead = new int[64];
+	shelfsize = new int[64];
+	shelfcost = new int[64];
+	shelfskus = new IntIntMap[64];
+	holdshelf = new int[64];
+	holdfirst = new int[64];
+	holdnext = new int[64];
+	holdprev = new int[64];
+	holdings = 0;
+	freeholding = NONE;
+	catalog = Catalog.standard().copy();  // SKUs added here stay here
+	skuhead = new int[0];
+	stockcounts = new int[0];
+	claimed = new IdentityHashMap<Item,Integer>();
+	fitCatalog();
+    }
+  /**
+   * local method to make the per-SKU arrays as long as the Catalog
+   */
+  private void fitCatalog() {
+	int old = skuhead.length;
+	if (old >= catalog.size()) return;
+	int length = Math.max(catalog.size(),2*old);
+	skuhead = Arrays.copyOf(skuhead,length);
+	stockcounts = Arrays.copyOf(stockcounts,length);
+	Arrays.fill(skuhead,old,length,NONE);
+    }
+  /**
+   * @return Catalog index of SKU number sku, or NONE if unknown
+   */
+  private int kind(int sku) {
+	int k = catalog.index(sku);
+	return (k < skuhead.length) ? k : NONE;
+    }
+  private ByteBuffer column(int bytes) {
+	return offheap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+    }
+  /**
+   * local method to double the room in every column
+   */
+  private void grow() {
+	capacity *= 2;
+	skus = copy(skus,4*capacity);
+	shelfof = copy(shelfof,4*capacity);
+	states = copy(states,capacity);
+	shelfnext = copy(shelfnext,4*capacity);
+	shelfprev = copy(shelfprev,4*capacity);
+	pairnext = copy(pairnext,4*capacity);
+	pairprev = copy(pairprev,4*capacity);
+    }
+  private ByteBuffer copy(ByteBuffer old, int bytes) {
+	ByteBuffer b = column(bytes);
+	old.clear();
+	b.put(old);
+	return b;
+    }
+
+  /**
+   * @return number of Shelf s, numbering it if it is new
+   */
+  private int number(Shelf s) {
+	int key = s.home.x*floor.getWarehouseDepth() + s.home.y;
+	int n = shelfnumber.get(key,NONE);
+	if (n != NONE) return n;
+	n = shelflist.size();
+	shelflist.add(s);
+	shelfnumber.put(key,n);
+	if (n == shelfhead.length) {
+	  shelfhead = Arrays.copyOf(shelfhead,2*n);
+	  shelfsize = Arrays.copyOf(shelfsize,2*n);
+	  shelfcost = Arrays.copyOf(shelfcost,2*n);
+	  shelfskus = Arrays.copyOf(shelfskus,2*n);
+	  }
+	shelfhead[n] = NONE;
+	shelfsize[n] = 0;
+	shelfskus[n] = new IntIntMap();
+	int d = floor.getDistance(s.home,floor.getPicker(),true);
+	shelfcost[n] = (d < 0) ? Integer.MAX_VALUE : d;
+	return n;
+    }
+  /**
+   * @return number of Shelf s, or NONE if it never had units
+   */
+  private int lookup(Shelf s) {
+	return shelfnumber.get(s.home.x*floor.getWarehouseDepth() + s.home.y,NONE);
+    }
+
+  /**
+   * Put one unit of SKU sku on Shelf s
+   * @return the unit number
+   */
+  public int addItem(int sku, Shelf s) {
+	int u;
+	if (free != NONE) {
+	  u = free;
+	  free = shelfnext.getInt(4*u);
+	  }
+	else {
+	  if (used == capacity) grow();
+	  u = used++;
+	  }
+	int n = number(s);
+	int k = catalog.index(sku);
+	if (k < 0) k = catalog.add(sku,null);  // a SKU with no description
+	fitCatalog();
+	skus.putInt(4*u,k);
+	shelfof.putInt(4*u,n);
+	states.put(u,ONSHELF);
+	// link at the front of the shelf's chain and its holding
+	int h = shelfhead[n];
+	shelfnext.putInt(4*u,h);
+	shelfprev.putInt(4*u,NONE);
+	if (h != NONE) shelfprev.putInt(4*h,u);
+	shelfhead[n] = u;
+	shelfsize[n]++;
+	linkSku(u);
+	return u;
+    }
+  /**
+   * local method to put unit u at the front of its holding,
+   * starting the holding if its shelf had no unit of its SKU
+   */
+  private void linkSku(int u) {
+	int k = skus.getInt(4*u), n = shelfof.getInt(4*u);
+	int h = shelfskus[n].get(k,NONE);
+	if (h == NONE) h = newHolding(n,k);
+	int first = holdfirst[h];
+	pairnext.putInt(4*u,first);
+	pairprev.putInt(4*u,NONE);
+	if (first != NONE) pairprev.putInt(4*first,u);
+	holdfirst[h] = u;
+	stockcounts[k]++;
+	units++;
+    }
+  /**
+   * local method to take unit u out of its holding, ending
+   * the holding if u was its last unit
+   */
+  private void unlinkSku(int u) {
+	int k = skus.getInt(4*u), n = shelfof.getInt(4*u);
+	int h = shelfskus[n].get(k,NONE);
+	int next = pairnext.getInt(4*u), prev = pairprev.getInt(4*u);
+	if (prev != NONE) pairnext.putInt(4*prev,next); else holdfirst[h] = next;
+	if (next != NONE) pairprev.putInt(4*next,prev);
+	if (holdfirst[h] == NONE) endHolding(h,n,k);
+	stockcounts[k]--;
+	units--;
+    }
+  /**
+   * local method to start an empty holding of the SKU at Catalog
+   * index k on shelf number n, at the front of the SKU's chain
+   * @return the holding number
+   */
+  private int newHolding(int n, int k) {
+	int h;
+	if (freeholding != NONE) {
+	  h = freeholding;
+	  freeholding = holdnext[h];
+	  }
+	else {
+	  if (holdings == holdshelf.length) {
+		holdshelf = Arrays.copyOf(holdshelf,2*holdings);
+		holdfirst = Arrays.copyOf(holdfirst,2*holdings);
+		holdnext = Arrays.copyOf(holdnext,2*holdings);
+		holdprev = Arrays.copyOf(holdprev,2*holdings);
+		}
+	  h = holdings++;
+	  }
+	holdshelf[h] = n;
+	holdfirst[h] = NONE;
+	int head = skuhead[k];
+	holdnext[h] = head;
+	holdprev[h] = NONE;
+	if (head != NONE) holdprev[head] = h;
+	skuhead[k] = h;
+	shelfskus[n].put(k,h);
+	return h;
+    }
+  /**
+   * local method to take the empty holding h, of the SKU at
+   * Catalog index k on shelf number n, out of the SKU's chain
+   * and free its number
+   */
+  private void endHolding(int h, int n, int k) {
+	int next = holdnext[h], prev = holdprev[h];
+	if (prev != NONE) holdnext[prev] = next; else skuhead[k] = next;
+	if (next != NONE) holdprev[next] = prev;
+	shelfskus[n].remove(k);
+	holdnext[h] = freeholding;
+	freeholding = h;
+    }
+  /**
+   * local method to take unit u, which is reserved, off its
+   * shelf and free its slot
+   */
+  private void free(int u) {
+	int n = shelfof.getInt(4*u);
+	int next = shelfnext.getInt(4*u), prev = shelfprev.getInt(4*u);
+	if (prev != NONE) shelfnext.putInt(4*prev,next); else shelfhead[n] = next;
+	if (next != NONE) shelfprev.putInt(4*next,prev);
+	shelfsize[n]--;
+	states.put(u,FREE);
+	shelfnext.putInt(4*u,free);
+	free = u;
+    }
+  /**
+   * @return a new Item for unit u, for handing out
+   */
+  private Item item(int u) {
+	Item e = catalog.item(skus.getInt(4*u));
+	e.setPlace(shelflist.get(shelfof.getInt(4*u)));
+	return e;
+    }
+  /**
+   * @return number of unreserved units in stock
+   */
+  public int size() {
+	return units;
+    }
+
+  /**
+   * return a random Item from the catalog, to build a mock order
+   */
+  public Item randomItem() {
+	return catalog.item(randomsource.nextInt(catalog.size()));
+	}
+  /**
+   * @return array of (new) Item objects for the units on Shelf s
+   */
+  public Item[] onShelf(Shelf s) {
+	int n = lookup(s);
+	if (n == NONE) return new Item[0];
+	Item[] result = new Item[shelfsize[n]];
+	// the chain has the newest unit first
+	int i = result.length;
+	for (int u = shelfhead[n]; u != NONE; u = shelfnext.getInt(4*u)) result[--i] = item(u);
+	return result;
+    }
+  public Item[] onShelf(Point p) {
+	Cell c = floor.getCell(p);
+	if (c.getContents() == null) return null;
+	if (!(c.getContents() instanceof Shelf)) return null;
+	return this.onShelf((Shelf)c.getContents());
+    }
+  public int stockCount(int x) {
+	int k = kind(x);
+	return (k == NONE) ? 0 : stockcounts[k];
+    }
+  public int stockCount(Item i) {
+	return this.stockCount(i.id);
+    }
+  /**
+   * @return the Shelf nearest the Picker, resting on the floor,
+   * that has at least one unit of this item, or null
+   */
+  public Shelf findItem(Item i) {
+	int best = NONE, k = kind(i.id);
+	if (k == NONE) return null;
+	for (int h = skuhead[k]; h != NONE; h = holdnext[h]) {
+	  int n = holdshelf[h];
+	  if (!shelflist.get(n).onFloor()) continue;  // ignore moving shelves
+	  if (best == NONE || shelfcost[n] < shelfcost[best]) best = n;
+	  }
+	return (best == NONE) ? null : shelflist.get(best);
+    }
+  /**
+   * @return the Shelf with the lowest estimated cost to fetch
+   * a unit of Item i for an order, estimated as MockInventory
+   * does, or null
+   */
+  public Shelf findItem(Item i, Item[] order) {
+	int best = NONE, k = kind(i.id);
+	if (k == NONE) return null;
+	long bestcost = 0, bestshare = 1;
+	for (int h = skuhead[k]; h != NONE; h = holdnext[h]) {
+	  int n = holdshelf[h];
+	  long cost = 2L*shelfcost[n];
+	  if (!shelflist.get(n).onFloor()) cost *= 2;
+	  int share = 1;
+	  if (order != null) {
+		for (Item e: order) {
+		  if (e != null && e.id != i.id && holds(n,kind(e.id))) share++;
+		  }
+	    }
+	  if (best == NONE || cost*bestshare < bestcost*share) {
+		best = n;
+		bestcost = cost;
+		bestshare = share;
+	    }
+	  }
+	return (best == NONE) ? null : shelflist.get(best);
+    }
+  /**
+   * @return true if shelf number n has an unreserved unit of
+   * the SKU at Catalog index k
+   */
+  private boolean holds(int n, int k) {
+	return k != NONE && shelfskus[n].containsKey(k);
+    }
+  /**
+   * Claim one unit of Item a on Shelf s for an order; it stays
+   * on the Shelf but is no longer found or counted
+   * @return the reserved unit, or null if s has no unit free
+   */
+  public Item reserve(Item a, Shelf s) {
+	int n = lookup(s), k = kind(a.id);
+	if (n == NONE || k == NONE) return null;
+	int h = shelfskus[n].get(k,NONE);
+	if (h == NONE) return null;
+	int u = holdfirst[h];
+	unlinkSku(u);
+	states.put(u,RESERVED);
+	Item e = item(u);
+	claimed.put(e,u);
+	return e;
+    }
+  /**
+   * Give back a unit that reserve() returned
+   */
+  public void release(Item r) {
+	int u = claimed.remove(r);
+	assert states.get(u) == RESERVED;
+	states.put(u,ONSHELF);
+	linkSku(u);
+    }
+  /**
+   * Take a unit that reserve() returned off its Shelf, which
+   * a Robot has brought to the Picker
+   */
+  public void commit(Item r) {
+	assert !r.place.onFloor();  // only remove from carried Shelf
+	int u = claimed.remove(r);
+	assert states.get(u) == RESERVED;
+	free(u);
+	r.setPlace(null);  // not on Shelf anymore
+    }
+  /**
+   * Remove one unit of Item a from Shelf s, which a
+   * Robot has brought to the Picker
+   * @return the Item removed, or null if s has none
+   */
+  public Item removeItem(Item a, Shelf s) {
+	assert !s.onFloor();  // only remove from carried Shelf
+	Item e = reserve(a,s);
+	if (e != null) commit(e);
+	return e;
+    }
+  /**
+   * Remove one unit of each of the wanted items from Shelf s
+   * @return the units removed, in the order wanted (an entry
+   * is null if s had no unit of that item left)
+   */
+  public Item[] removeItems(Item[] wanted, Shelf s) {
+	Item[] result = new Item[wanted.length];
+	for (int i=0; i<wanted.length; i++) result[i] = removeItem(wanted[i],s);
+	return result;
+    }
+  }
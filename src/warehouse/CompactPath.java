@@ -0,0 +1,78 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * CompactPath is an unmodifiable list of Points that are each next
+ * to the one before; it stores two bits per step (which way the step
+ * goes) instead of a reference per Point, plus the square where every
+ * 32nd step begins so that get(i) only has to replay a few steps.
+ * The Points it hands out are the canonical cells of the floor.
+ *
+ */
+public class CompactPath extends AbstractList<Point> {
+  private final Cell[] cells;  // all cells of the floor, by index
+  private final int depth;     // so index of (x,y) is x*depth+y
+  private final int size;      // number of Points in path
+  private final long[] moves;  // two bits per step, 32 steps per long
+  private final int[] marks;   // marks[k] = index of Point 32*k
+
+  // two-bit codes of a step, by which way the step goes
+  private static final int WEST = 0, EAST = 1, NORTH = 2, SOUTH = 3;
+
+  /**
+   * @param steps indices of the squares on the path
+   * @param cells the cells of the floor, by index
+   * @param depth of the floor
+   */
+  CompactPath(int[] steps, Cell[] cells, int depth) {
+	this.cells = cells;
+	this.depth = depth;
+	size = steps.length;
+	moves = new long[(size+31)/32];
+	marks = new int[(size+31)/32];
+	for (int i=0; i<size; i++) {
+	  if ((i & 31) == 0) marks[i >>> 5] = steps[i];
+	  if (i == 0) continue;
+	  int d = steps[i] - steps[i-1];
+	  long code;
+	  if (d == -depth) code = WEST;
+	  else if (d == depth) code = EAST;
+	  else if (d == -1) code = NORTH;
+	  else if (d == 1) code = SOUTH;
+	  else throw new IllegalArgumentException("path has a jump at "+i);
+	  moves[(i-1) >>> 5] |= code << (2*((i-1) & 31));
+	  }
+    }
+  public int size() { return size; }
+  /**
+   * @return the i-th Point of the path
+   */
+  public Point get(int i) {
+	return cells[square(i)];
+    }
+  /**
+   * @return index of the i-th square of the path
+   */
+  int square(int i) {
+	if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index "+i);
+	int n = marks[i >>> 5];
+	long word = moves[i >>> 5];
+	for (int j = 0; j < (i & 31); j++) {
+	  switch ((int)(word >>> (2*j)) & 3) {
+	  case WEST:  n -= depth; break;
+	  case EAST:  n += depth; break;
+	  case NORTH: n -= 1; break;
+	  case SOUTH: n += 1; break;
+	    }
+	  }
+	return n;
+    }
+  /**
+   * @return rough number of bytes this path uses
+   */
+  int footprint() {
+	return 32 + 8*moves.length + 4*marks.length;
+    }
+  }
@@ -0,0 +1,317 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * CooperativePlanner plans paths for many Robots, one Robot at a
+ * time, so that a Robot planned later steers around every Robot
+ * planned before it (this is "cooperative A*"). Plans are made in
+ * space and time: path[k] is the square a Robot is in at tick t0+k,
+ * and a path can repeat a square, meaning the Robot waits there
+ * while another Robot goes by. Every accepted plan is entered in a
+ * ReservationTable, which later plans must respect.
+ *
+ * To keep planning cheap, the ordinary shortest path from the Floor
+ * (which usually comes from a flow field or the path cache) is tried
+ * first and is used whenever it has no conflict; only if it does
+ * is there a search over (square, tick) states, which uses the
+ * flow field distance as its heuristic where there is one.
+ *
+ * Like PathFinder, the search allocates nothing once it is warmed
+ * up: the open set is a binary heap in int arrays, and the states
+ * seen are kept in an open-addressing table of long keys, both
+ * reused from one search to the next.
+ *
+ */
+public class CooperativePlanner {
+  final GridFloor F;
+  final ReservationTable table;
+  static final int WAITSEARCH = 4096;  // most squares looked at for a waiting square
+  int budget;  // most (square, tick) states to expand in one search
+
+  // scratch for the search: states are numbered in order made
+  private int[] statesquare = new int[1024];
+  private int[] statetime = new int[1024];   // ticks after t0
+  private int[] stateparent = new int[1024];
+  private int states;
+  // open set: a binary heap of state numbers, ordered by f
+  // then by deeper state first
+  private int[] heapstate = new int[1024];
+  private int[] heapf = new int[1024];
+  private int heapsize;
+  // keys seen, a slot in use only if seenstamp[slot] == generation,
+  // so the table is emptied for a new search by bumping generation
+  private long[] seenkey = new long[1<<12];
+  private int[] seenstamp = new int[1<<12];
+  private int seenused, generation = 1;
+  private int[] queue = new int[WAITSEARCH];  // for waitingSquare
+
+  /**
+   * @param F is the Floor to plan on
+   */
+  public CooperativePlanner(GridFloor F) {
+	this.F = F;
+	table = new ReservationTable();
+	budget = 20000;
+    }
+
+  public ReservationTable getReservations() { return table; }
+
+  /**
+   * Plan a path for Robot r and reserve it
+   * @param r is the Robot's number
+   * @param start is the square where the Robot is at tick t0
+   * @param goal is the square where the Robot wants to go
+   * @param t0 is the tick when the plan starts
+   * @param carrying is true if the Robot carries a Shelf
+   * @return squares by tick, starting with start at t0 and
+   * ending with goal, or null if no plan is possible right now
+   * (then the Robot should stay parked and try again later)
+   */
+  public int[] plan(int r, int start, int goal, int t0, boolean carrying) {
+	if (taken(goal,r)) return null;  // someone is there
+	table.unpark(start,r);
+	int[] path = direct(r,start,goal,t0,carrying);
+	if (path == null) path = search(r,start,goal,t0,carrying);
+	if (path == null) {
+	  table.park(start,t0,r);
+	  return null;
+	  }
+	table.reserve(path,t0,r);
+	return path;
+    }
+
+  /**
+   * @return true if some Robot other than r is parked at goal
+   */
+  public boolean taken(int goal, int r) {
+	int owner = table.parked(goal);
+	return owner >= 0 && owner != r;
+    }
+
+  /**
+   * When the goal is taken (say another Robot is at the Picker),
+   * a Robot can wait close by instead of far away. Waiting squares
+   * are at least two steps from the goal and have even x and y, so
+   * that waiting Robots never wall in the goal or each other.
+   * @return the nearest free waiting square to goal (or -1 if none
+   * is found in a small search)
+   */
+  public int waitingSquare(int r, int goal, boolean carrying, int t0) {
+	BitSet blocked = carrying ? F.shelfsquares : null;
+	clearSeen();
+	int head = 0, tail = 0;
+	queue[tail++] = goal;
+	addSeen(goal);
+	while (head < tail) {
+	  int n = queue[head++];
+	  int x = n / F.depth, y = n % F.depth;
+	  int d = Math.abs(x - goal/F.depth) + Math.abs(y - goal%F.depth);
+	  if (d >= 2 && x%2 == 0 && y%2 == 0 && table.parked(n) < 0
+			  && table.canPark(n,t0,r)) return n;
+	  if (x > 0) tail = visit(n-F.depth,tail,blocked);
+	  if (x < F.width-1) tail = visit(n+F.depth,tail,blocked);
+	  if (y > 0) tail = visit(n-1,tail,blocked);
+	  if (y < F.depth-1) tail = visit(n+1,tail,blocked);
+	  }
+	return -1;
+    }
+  private int visit(int v, int tail, BitSet blocked) {
+	if (tail == queue.length) return tail;
+	if (blocked != null && blocked.get(v)) return tail;
+	if (addSeen(v)) queue[tail++] = v;
+	return tail;
+    }
+
+  /**
+   * @return the Floor's shortest path from start to goal, if it
+   * has no conflict with plans already made, otherwise null; if
+   * some other Robot will pass through goal after this Robot could
+   * get there, the path begins by waiting at start long enough to
+   * arrive after that
+   */
+  private int[] direct(int r, int start, int goal, int t0, boolean carrying) {
+	Point s = F.cells[start], t = F.cells[goal];
+	List<Point> L = F.getPath(s,t,carrying);
+	if (L == null) return null;
+	int arrive = t0+L.size()-1;
+	int from = table.parkableFrom(goal,arrive,r);
+	if (from < 0) return null;
+	int delay = from-arrive;
+	int[] path = new int[delay+L.size()];
+	for (int k=0; k<path.length; k++) {
+	  Point p = L.get(Math.max(0,k-delay));
+	  path[k] = p.x*F.depth + p.y;
+	  if (k == 0) {
+		if (!table.free(path[0],t0,r)) return null;
+		}
+	  else if (!table.canMove(path[k-1],path[k],t0+k-1,r)) return null;
+	  }
+	return path;
+    }
+
+  /**
+   * Space-time A* search: from each (square, tick) state, a Robot
+   * can step to a neighboring square or wait where it is, and each
+   * costs one tick, so the cost of a state is just its tick.
+   */
+  private int[] search(int r, int start, int goal, int t0, boolean carrying) {
+	if (!table.free(start,t0,r)) return null;
+	BitSet blocked = carrying ? F.shelfsquares : null;
+	FlowField field = F.flowField(goal,carrying);
+	if (field == null && carrying && F.width*F.depth < GridFloor.LARGEFLOOR) {
+	  // a carried Shelf goes around shelf areas, which Manhattan
+	  // distance does not see, so use an exact heuristic
+	  field = F.carryingField(goal);
+	  }
+	states = 0;
+	heapsize = 0;
+	clearSeen();
+	newState(start,0,-1);
+	addSeen(stateKey(start,0));
+	push(0,h(field,start,goal));
+	int expanded = 0;
+	while (heapsize > 0 && expanded < budget) {
+	  int id = pop();
+	  int n = statesquare[id], k = statetime[id];
+	  expanded++;
+	  if (n == goal && table.canPark(goal,t0+k,r)) return trace(id);
+	  int x = n / F.depth, y = n % F.depth;
+	  expand(id,n,n,k,t0,r,goal,blocked,field);   // wait here
+	  if (x > 0) expand(id,n,n-F.depth,k,t0,r,goal,blocked,field);
+	  if (x < F.width-1) expand(id,n,n+F.depth,k,t0,r,goal,blocked,field);
+	  if (y > 0) expand(id,n,n-1,k,t0,r,goal,blocked,field);
+	  if (y < F.depth-1) expand(id,n,n+1,k,t0,r,goal,blocked,field);
+	  }
+	return null;
+    }
+  private void expand(int id, int u, int v, int k, int t0, int r,
+		  int goal, BitSet blocked, FlowField field) {
+	if (blocked != null && v != goal && v != u && blocked.get(v)) return;
+	if (!table.canMove(u,v,t0+k,r)) return;
+	if (!addSeen(stateKey(v,k+1))) return;
+	int hv = h(field,v,goal);
+	if (hv < 0) return;  // goal can't be reached from v
+	int nid = newState(v,k+1,id);
+	push(nid,k+1+hv);
+    }
+  private static long stateKey(int n, int k) {
+	return ((long)k << 32) | (n & 0xffffffffL);
+    }
+  /**
+   * local methods for the table of keys seen
+   */
+  private void clearSeen() {
+	seenused = 0;
+	if (++generation == 0) {  // wrapped around, really clear
+	  Arrays.fill(seenstamp,0);
+	  generation = 1;
+	  }
+    }
+  /**
+   * @return false if key was seen already, else true (and
+   * key is now seen)
+   */
+  private boolean addSeen(long key) {
+	if (2*(seenused+1) > seenkey.length) growSeen();
+	int mask = seenkey.length-1;
+	int i = hash(key) & mask;
+	while (seenstamp[i] == generation) {
+	  if (seenkey[i] == key) return false;
+	  i = (i+1) & mask;
+	  }
+	seenstamp[i] = generation;
+	seenkey[i] = key;
+	seenused++;
+	return true;
+    }
+  private void growSeen() {
+	long[] okey = seenkey;
+	int[] ostamp = seenstamp;
+	seenkey = new long[2*okey.length];
+	seenstamp = new int[2*okey.length];
+	int mask = seenkey.length-1;
+	for (int j=0; j<okey.length; j++) {
+	  if (ostamp[j] != generation) continue;
+	  int i = hash(okey[j]) & mask;
+	  while (seenstamp[i] == generation) i = (i+1) & mask;
+	  seenstamp[i] = generation;
+	  seenkey[i] = okey[j];
+	  }
+    }
+  private static int hash(long key) {
+	long h = key * 0x9E3779B97F4A7C15L;
+	return (int)(h ^ (h >>> 32));
+    }
+
+  /**
+   * local methods for the heap of open states
+   */
+  private boolean less(int i, int j) {
+	if (heapf[i] != heapf[j]) return heapf[i] < heapf[j];
+	return statetime[heapstate[i]] > statetime[heapstate[j]];  // deeper first on ties
+    }
+  private void swap(int i, int j) {
+	int t = heapstate[i]; heapstate[i] = heapstate[j]; heapstate[j] = t;
+	t = heapf[i]; heapf[i] = heapf[j]; heapf[j] = t;
+    }
+  private void push(int id, int f) {
+	if (heapsize == heapstate.length) {
+	  heapstate = Arrays.copyOf(heapstate,2*heapsize);
+	  heapf = Arrays.copyOf(heapf,2*heapsize);
+	  }
+	int i = heapsize++;
+	heapstate[i] = id; heapf[i] = f;
+	while (i > 0) {
+	  int p = (i-1) >>> 1;
+	  if (!less(i,p)) break;
+	  swap(i,p);
+	  i = p;
+	  }
+    }
+  private int pop() {
+	int id = heapstate[0];
+	heapsize--;
+	if (heapsize > 0) {
+	  swap(0,heapsize);
+	  int i = 0;
+	  while (true) {
+		int l = 2*i+1, r = l+1, m = i;
+		if (l < heapsize && less(l,m)) m = l;
+		if (r < heapsize && less(r,m)) m = r;
+		if (m == i) break;
+		swap(i,m);
+		i = m;
+	    }
+	  }
+	return id;
+    }
+
+  private int newState(int n, int k, int parent) {
+	if (states == statesquare.length) {
+	  statesquare = Arrays.copyOf(statesquare,2*states);
+	  statetime = Arrays.copyOf(statetime,2*states);
+	  stateparent = Arrays.copyOf(stateparent,2*states);
+	  }
+	statesquare[states] = n;
+	statetime[states] = k;
+	stateparent[states] = parent;
+	return states++;
+    }
+  /**
+   * heuristic: exact distance if there is a flow field to the
+   * goal, otherwise Manhattan distance
+   */
+  private int h(FlowField field, int n, int goal) {
+	if (field != null) return field.distance(n);
+	return Math.abs(n/F.depth - goal/F.depth) + Math.abs(n%F.depth - goal%F.depth);
+    }
+  private int[] trace(int id) {
+	int[] path = new int[statetime[id]+1];
+	for (int i = id; i >= 0; i = stateparent[i]) {
+	  path[statetime[i]] = statesquare[i];
+	  }
+	return path;
+    }
+  }
@@ -34,12 +34,19 @@ public interface Floor {
   int getWarehouseWidth();
   int getWarehouseDepth();
   Point getPicker(); 
+  // all the picker stations, the first being getPicker()
+  List<Point> getPickers();
   Point getPacker(); 
   Point getShippingDock(); 
   Point getReceivingDock(); 
   Point getCharger();
   List<Point> getBeltArea();
   List<Point> getPath(Point start,Point end);
+  // path for a Robot, which must keep out of shelf areas
+  // when it is carrying a Shelf
+  List<Point> getPath(Point start,Point end,boolean carrying);
+  // number of steps of that path, -1 if there is no path
+  int getDistance(Point start,Point end,boolean carrying);
   Cell getCell(int x, int y);
   Cell getCell(Point P);
   int getNumShelfAreas();
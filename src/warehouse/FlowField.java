@@ -0,0 +1,130 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * A FlowField is the result of one breadth-first search outward
+ * from a fixed destination (like the Picker or the Charger): for
+ * every square of the floor it records the distance to that
+ * destination and which way to step to get one square closer.
+ * Then a path from anywhere to the destination is just a walk
+ * downhill, with no searching, and the distance is a lookup.
+ *
+ * Squares are named by index, x*depth + y, as in GridFloor.
+ *
+ */
+public class FlowField {
+  final int width;
+  final int depth;
+  final int goal;       // index of the destination square
+  final BitSet blocked; // squares that cannot be entered, or null
+  int[] dist;           // steps to goal, or -1 if goal can't be reached
+  byte[] next;          // direction of next step (see step below)
+
+  // directions: next[n] = 1 means step to x-1, 2 to x+1, 3 to y-1, 4 to y+1
+  private static final byte NONE = 0, WEST = 1, EAST = 2, NORTH = 3, SOUTH = 4;
+
+  /**
+   * Build the flow field by searching outward from goal
+   * @param width number of squares in x direction
+   * @param depth number of squares in y direction
+   * @param goal index of the destination square
+   * @param blocked squares that cannot be entered, or null
+   */
+  public FlowField(int width, int depth, int goal, BitSet blocked) {
+	this.width = width;
+	this.depth = depth;
+	this.goal = goal;
+	this.blocked = blocked;
+	dist = new int[width*depth];
+	next = new byte[width*depth];
+	Arrays.fill(dist,-1);
+	int[] queue = new int[width*depth];
+	int head = 0, tail = 0;
+	dist[goal] = 0;
+	queue[tail++] = goal;
+	while (head < tail) {
+	  int u = queue[head++];
+	  int x = u / depth, y = u % depth;
+	  // a neighbor of u that steps toward u: from x-1 that is EAST, etc.
+	  if (x > 0) tail = visit(queue,tail,u-depth,u,EAST);
+	  if (x < width-1) tail = visit(queue,tail,u+depth,u,WEST);
+	  if (y > 0) tail = visit(queue,tail,u-1,u,SOUTH);
+	  if (y < depth-1) tail = visit(queue,tail,u+1,u,NORTH);
+	  }
+    }
+  private int visit(int[] queue, int tail, int n, int u, byte direction) {
+	if (dist[n] >= 0) return tail;
+	if (blocked != null && blocked.get(n)) return tail;
+	dist[n] = dist[u]+1;
+	next[n] = direction;
+	queue[tail] = n;
+	return tail+1;
+    }
+
+  /**
+   * @return index of the square one step from n toward the goal
+   */
+  int step(int n) {
+	switch (next[n]) {
+	case WEST:  return n-depth;
+	case EAST:  return n+depth;
+	case NORTH: return n-1;
+	case SOUTH: return n+1;
+	  }
+	return n;
+    }
+
+  /**
+   * A start square that is blocked (for instance the home of a
+   * Shelf that a Robot just picked up) was not reached by the
+   * search; a path from there begins by stepping to whichever
+   * open neighbor is closest to the goal.
+   * @return the first square to use for a walk from n, which
+   * is n itself unless n is blocked, or -1 if there is no path
+   */
+  private int entry(int n) {
+	if (dist[n] >= 0) return n;
+	int x = n / depth, y = n % depth;
+	int best = -1;
+	if (x > 0) best = closer(best,n-depth);
+	if (x < width-1) best = closer(best,n+depth);
+	if (y > 0) best = closer(best,n-1);
+	if (y < depth-1) best = closer(best,n+1);
+	return best;
+    }
+  private int closer(int best, int n) {
+	if (dist[n] < 0) return best;
+	if (best < 0 || dist[n] < dist[best]) return n;
+	return best;
+    }
+
+  /**
+   * @return number of steps from square n to the goal,
+   * or -1 if the goal can't be reached from n
+   */
+  public int distance(int n) {
+	int e = entry(n);
+	if (e < 0) return -1;
+	return (e == n) ? dist[n] : dist[e]+1;
+    }
+
+  /**
+   * @return indices of squares from n to the goal (inclusive),
+   * or null if the goal can't be reached from n
+   */
+  public int[] walk(int n) {
+	int e = entry(n);
+	if (e < 0) return null;
+	int[] path = new int[distance(n)+1];
+	int i = 0;
+	path[i++] = n;
+	if (e != n) path[i++] = e;
+	for (int v = e; v != goal; ) {
+	  v = step(v);
+	  path[i++] = v;
+	  }
+	return path;
+    }
+  }
@@ -0,0 +1,375 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * GridFloor is a Floor whose Cell objects are kept in one flat
+ * array, so that finding the Cell at (x,y) is just arithmetic:
+ * the Cell at (x,y) is cells[x*depth + y]. There is no hashing,
+ * no String building and no Point allocation in getCell(x,y),
+ * which matters because RobotScheduler, Belt and Visualizer
+ * call getCell() many times in every tick.
+ *
+ * The layout (size, picker, docks, shelf areas and so on) is
+ * given to the constructor; MockFloor is a GridFloor with the
+ * layout of the demo warehouse.
+ *
+ */
+public class GridFloor implements Floor {
+  final int width;   // x coordinates are 0 .. width-1
+  final int depth;   // y coordinates are 0 .. depth-1
+  final Cell[] cells; // Cell at (x,y) is cells[x*depth+y]
+
+  final Point picker;
+  List<Point> pickers;  // picker stations, picker first
+  final Point packer;
+  final Point shippingdock;
+  final Point receivingdock;
+  final Point charger;
+
+  List<ShelfArea> shelfareas;
+  BitSet shelfsquares;  // index of each square in a shelf area
+  PathFinder pathfinder;
+  // flow fields to fixed destinations, keyed by 2*index + carrying
+  Map<Integer,FlowField> flowfields;
+  // carrying flow fields to other goals (shelf homes), kept as
+  // heuristics for CooperativePlanner, the most recently used first
+  LinkedHashMap<Integer,FlowField> heuristics;
+  PathCache pathcache;  // recent paths found by search
+  // for carrying paths on large floors, or null on small floors
+  HierarchicalPathFinder clusters;
+  SimRandom randogen;
+
+  /**
+   * floors with at least this many squares find carrying paths
+   * with HierarchicalPathFinder instead of A* on every square
+   */
+  static final int LARGEFLOOR = 1<<20;
+  /**
+   * but trips shorter than this (in Manhattan distance) still use
+   * A*, which is quick for them and always finds a shortest path
+   */
+  static final int NEARBY = 256;
+  /**
+   * most carrying flow fields kept as heuristics
+   */
+  static final int HEURISTICS = 64;
+
+  /**
+   * Constructor of a GridFloor
+   * @param width is number of squares in x direction
+   * @param depth is number of squares in y direction
+   * @param picker, packer, shippingdock, receivingdock and
+   * charger are the special locations of the warehouse
+   * @param shelfareas are the ShelfArea objects of the warehouse
+   * @param rand is a SimRandom for predictable randomness
+   */
+  public GridFloor(int width, int depth, Point picker, Point packer,
+		  Point shippingdock, Point receivingdock, Point charger,
+		  List<ShelfArea> shelfareas, SimRandom rand) {
+	if (width <= 0 || depth <= 0 || (long)width*depth > Integer.MAX_VALUE)
+	  throw new IllegalArgumentException("bad floor size "+width+"x"+depth);
+	this.width = width;
+	this.depth = depth;
+	this.picker = picker;
+	pickers = new ArrayList<Point>();
+	pickers.add(picker);
+	this.packer = packer;
+	this.shippingdock = shippingdock;
+	this.receivingdock = receivingdock;
+	this.charger = charger;
+	this.shelfareas = shelfareas;
+	randogen = rand;
+	cells = new Cell[width*depth];
+	shelfsquares = new BitSet();
+	// shelf areas already have their cells, so put those
+	// in place first (any part of a shelf area that is off
+	// the floor is left out)
+	for (ShelfArea s: shelfareas) {
+	  for (Cell N: s.areacontents) {
+		int n = index(N.x,N.y);
+		if (n < 0) continue;
+		cells[n] = N;
+		shelfsquares.set(n);
+	    }
+	  }
+	// then make all the other cells that the warehouse has,
+	// where each cell is one "square" on the floor
+	for (int i=0; i<width; i++)
+	  for (int j=0; j<depth; j++) {
+		if (cells[i*depth+j] == null) cells[i*depth+j] = new Cell(i,j);
+	    }
+	pathfinder = new PathFinder(width,depth);
+	flowfields = new HashMap<Integer,FlowField>();
+	heuristics = new LinkedHashMap<Integer,FlowField>(16,0.75f,true) {
+	  protected boolean removeEldestEntry(Map.Entry<Integer,FlowField> e) {
+		return size() > HEURISTICS;
+	    }
+	  };
+	pathcache = new PathCache(4<<20);
+	if ((long)width*depth >= LARGEFLOOR) {
+	  clusters = new HierarchicalPathFinder(width,depth,32,shelfsquares);
+	  }
+    }
+
+  /**
+   * @return true if (x,y) is a square of this floor
+   */
+  boolean inside(int x, int y) {
+	return x >= 0 && x < width && y >= 0 && y < depth;
+    }
+  /**
+   * @return position of (x,y) in the cells array,
+   * or -1 if (x,y) is not on this floor
+   */
+  int index(int x, int y) {
+	if (!inside(x,y)) return -1;
+	return x*depth + y;
+    }
+  /**
+   * @return Cell at specified place, or null if
+   * the place is not on this floor
+   */
+  public Cell getCell(int x, int y) {
+	if (!inside(x,y)) return null;
+	return cells[x*depth + y];
+    }
+  public Cell getCell(Point P) {
+	return getCell(P.x,P.y);
+    }
+  /**
+   * methods to return known locations in warehouse
+   */
+  public int getWarehouseWidth() { return width; }
+  public int getWarehouseDepth() { return depth; }
+  public Point getPicker() { return picker; }
+  public List<Point> getPickers() { return Collections.unmodifiableList(pickers); }
+  public Point getPacker() { return packer; }
+  public Point getShippingDock() { return shippingdock; }
+  public Point getReceivingDock() { return receivingdock; }
+  public Point getCharger() { return charger; }
+  public List<Point> getBeltArea() {
+	ArrayList<Point> beltarea = new ArrayList<Point>();
+	for (int i=picker.y; i>=0; i--) {
+	  beltarea.add(new Point(0,i));
+	  }
+	return beltarea;
+    }
+  /**
+   * @return shortest path from s to t for a Robot that is 
+   * not carrying a Shelf (it can drive under shelves)
+   */
+  public List<Point> getPath(Point s,Point t) {
+	return getPath(s,t,false);
+    }
+  /**
+   * @return unmodifiable list of Points, starting with s and ending
+   * with t, where each Point is next to the one before it, or null if
+   * there is no path; when carrying is true, the path does not 
+   * go through shelf area squares (except possibly at s and t);
+   * on a large floor, a long carrying path is found by hierarchical
+   * search, and its squares are filled in as they are used
+   */
+  public List<Point> getPath(Point s,Point t,boolean carrying) {
+	int start = index(s.x,s.y);
+	int goal = index(t.x,t.y);
+	if (start < 0 || goal < 0) return null;
+	FlowField field = flowField(goal,carrying);
+	if (field != null) return toPath(field.walk(start));
+	if (carrying && clusters != null
+			&& Math.abs(s.x-t.x)+Math.abs(s.y-t.y) >= NEARBY) {
+	  return toPath(clusters.search(start,goal));
+	  }
+	long key = PathCache.key(start,goal,carrying);
+	CompactPath path = pathcache.get(key);
+	if (path == null) {
+	  path = toPath(pathfinder.search(start,goal,carrying?shelfsquares:null));
+	  if (path == null) return null;
+	  pathcache.put(key,path);
+	  }
+	return path;
+    }
+  /**
+   * @return number of steps on a shortest path from s to t,
+   * or -1 if there is no path; this is a lookup when t is one
+   * of the fixed destinations (Picker, Receiving Dock, Charger)
+   */
+  public int getDistance(Point s,Point t,boolean carrying) {
+	int start = index(s.x,s.y);
+	int goal = index(t.x,t.y);
+	if (start < 0 || goal < 0) return -1;
+	FlowField field = flowField(goal,carrying);
+	if (field != null) return field.distance(start);
+	List<Point> path = getPath(s,t,carrying);
+	return (path == null) ? -1 : path.size()-1;
+    }
+  /**
+   * local method to turn square indices into a path of
+   * canonical Points
+   */
+  CompactPath toPath(int[] steps) {
+	if (steps == null) return null;
+	return new CompactPath(steps,cells,depth);
+    }
+  /**
+   * local method to turn a Route of a hierarchical search into
+   * a path of canonical Points
+   */
+  List<Point> toPath(final HierarchicalPathFinder.Route route) {
+	if (route == null) return null;
+	return new AbstractList<Point>() {
+	  public int size() { return route.size(); }
+	  public Point get(int i) { return cells[route.square(i)]; }
+	  };
+    }
+  /**
+   * @return the cache of paths found by search, for its counters
+   */
+  public PathCache getPathCache() {
+	return pathcache;
+    }
+  /**
+   * @return true if index is where Robots often go: a
+   * picker station, the Receiving Dock or the Charger
+   */
+  boolean fixedDestination(int index) {
+	if (index == index(receivingdock.x,receivingdock.y)
+		|| index == index(charger.x,charger.y)) return true;
+	for (Point p: pickers) if (index == index(p.x,p.y)) return true;
+	return false;
+    }
+  /**
+   * @return FlowField to a fixed destination (made the first
+   * time it's needed), or null if index is not a fixed destination
+   */
+  FlowField flowField(int index, boolean carrying) {
+	if (!fixedDestination(index)) return null;
+	int k = 2*index + (carrying?1:0);
+	FlowField field = flowfields.get(k);
+	if (field == null) {
+	  field = new FlowField(width,depth,index,carrying?shelfsquares:null);
+	  flowfields.put(k,field);
+	  }
+	return field;
+    }
+  /**
+   * @return FlowField of carrying distances to goal, which is
+   * a fixed destination's field, or one kept from an earlier
+   * search to goal, or else made now and kept (the same shelves
+   * are fetched again and again, so one BFS serves many plans)
+   */
+  FlowField carryingField(int goal) {
+	FlowField field = flowField(goal,true);
+	if (field != null) return field;
+	field = heuristics.get(goal);
+	if (field == null) {
+	  field = new FlowField(width,depth,goal,shelfsquares);
+	  heuristics.put(goal,field);
+	  }
+	return field;
+    }
+
+  /**
+   * Add a picker station at p, which has to be on the floor,
+   * not in a shelf area, and not where the packer, a dock or
+   * the charger is
+   */
+  public void addPicker(Point p) {
+	if (pickers.contains(p)) return;
+	int n = index(p.x,p.y);
+	if (n < 0 || shelfsquares.get(n) || special(n))
+	  throw new IllegalArgumentException("no room for a picker at "+p);
+	pickers.add(p);  // its flow fields are made when first used
+    }
+
+  /**
+   * @return true if square n is where a picker station, the
+   * packer, a dock or the charger is, which a ShelfArea may
+   * not cover
+   */
+  boolean special(int n) {
+	if (n == index(packer.x,packer.y) || n == index(shippingdock.x,shippingdock.y)
+		|| n == index(receivingdock.x,receivingdock.y)
+		|| n == index(charger.x,charger.y)) return true;
+	for (Point p: pickers) if (n == index(p.x,p.y)) return true;
+	return false;
+    }
+  /**
+   * Add a ShelfArea to the warehouse layout; its cells take
+   * the place of the empty cells that were there. The whole
+   * area is checked first, so an area that is partly off the
+   * floor, or overlaps another area or a special location,
+   * leaves the layout as it was
+   */
+  public void addShelfArea(ShelfArea a) {
+	for (int i=0; i<a.getWidth(); i++)
+	  for (int j=0; j<a.getHeight(); j++) {
+		int n = index(a.corner.x+i,a.corner.y-j);
+		if (n < 0) throw new IllegalArgumentException("ShelfArea off floor");
+		if (shelfsquares.get(n)) throw new IllegalArgumentException("ShelfArea overlaps another at "+cells[n]);
+		if (special(n)) throw new IllegalArgumentException("ShelfArea covers "+cells[n]);
+	    }
+	for (int i=0; i<a.getWidth(); i++)
+	  for (int j=0; j<a.getHeight(); j++) {
+		int x = a.corner.x+i, y = a.corner.y-j;
+		int n = index(x,y);
+		cells[n] = a.getCell(x,y);
+		shelfsquares.set(n);
+	    }
+	shelfareas.add(a);
+	layoutChanged(a);
+    }
+  /**
+   * Remove a ShelfArea from the warehouse layout, leaving
+   * empty cells where it was (on the floor; an area made with
+   * the floor may hang partly off it)
+   */
+  public void removeShelfArea(ShelfArea a) {
+	if (!shelfareas.remove(a)) return;
+	for (int i=0; i<a.getWidth(); i++)
+	  for (int j=0; j<a.getHeight(); j++) {
+		int x = a.corner.x+i, y = a.corner.y-j;
+		int n = index(x,y);
+		if (n < 0) continue;
+		cells[n] = new Cell(x,y);
+		shelfsquares.clear(n);
+	    }
+	layoutChanged(a);
+    }
+  /**
+   * called whenever the layout changes (where ShelfArea a is
+   * added or removed), so that everything computed from the layout
+   * is recomputed; flow fields are rebuilt the next time they are
+   * used, cached paths are dropped, and on a large floor just the
+   * tiles around a are worked out again (routes only depend on
+   * where shelf areas are, so Robots and Shelves moving around
+   * does not make them stale)
+   */
+  void layoutChanged(ShelfArea a) {
+	flowfields.clear();
+	heuristics.clear();
+	pathcache.clear();
+	if (clusters != null) {
+	  clusters.invalidate(a.corner.x,a.corner.y-a.getHeight()+1,
+			  a.corner.x+a.getWidth()-1,a.corner.y);
+	  }
+    }
+  public int getNumShelfAreas() {
+	return shelfareas.size();
+    }
+  public ShelfArea getShelfArea(int which) {
+	return shelfareas.get(which);
+    }
+
+  /**
+   * @return some random Point within a randomly
+   * chosen shelfarea - might be useful for product
+   * distribution on shelves, returning a shelf to
+   * the shelfarea, etc.
+   */
+  public Point randomInShelfArea() {
+    int s = randogen.nextInt(shelfareas.size());
+    return (shelfareas.get(s)).randomPoint();
+    }
+  }
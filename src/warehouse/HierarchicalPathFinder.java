@@ -0,0 +1,344 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * HierarchicalPathFinder finds paths on very large floors, where
+ * plain A* (see PathFinder) would visit too many squares. The floor
+ * is cut into square tiles. Wherever two neighboring tiles can be
+ * crossed between (a run of open squares on both sides of their
+ * border), one or two "entrances" are chosen, and within each tile
+ * the distances between its entrances are worked out once. A search
+ * then runs over the entrances only, which is a much smaller graph
+ * (this is the method known as HPA*), and the squares in between
+ * entrances are only filled in when somebody asks for them.
+ *
+ * Tiles are worked out the first time a search needs them, so a
+ * search only costs time for the tiles near its path, and when the
+ * blocked squares change, invalidate() forgets just the tiles that
+ * the change touched. Paths found this way are close to shortest,
+ * though not always shortest.
+ *
+ * Squares are named by index, x*depth + y, as in GridFloor. The
+ * scratch arrays are shared, so one HierarchicalPathFinder should
+ * not be used by several threads at once.
+ *
+ */
+public class HierarchicalPathFinder {
+  final int width;
+  final int depth;
+  final int size;     // tiles are size x size squares (smaller at the edges)
+  final int tilesx;   // number of tiles in x direction
+  final int tilesy;   // number of tiles in y direction
+  final BitSet blocked;  // squares that cannot be entered
+  private Tile[] tiles;  // tiles[tx*tilesy+ty], or null until needed
+
+  // scratch for breadth-first search within a tile
+  private int[] bfsdist, bfsparent, bfsqueue;
+  // scratch for the search over entrances (same heap and table as A*)
+  private PathFinder.Scratch scratch;
+
+  /**
+   * The entrances of one tile: node i is at square[i], next to
+   * partner[i] in the neighboring tile; dist[i][j] is the number
+   * of steps from node i to node j staying in the tile (or -1)
+   */
+  static class Tile {
+	int[] square;
+	int[] partner;
+	int[][] dist;
+    }
+
+  /**
+   * @param width number of squares in x direction
+   * @param depth number of squares in y direction
+   * @param size of a tile, in squares along each side
+   * @param blocked squares that cannot be entered; this BitSet is
+   * kept (not copied), so call invalidate() after changing it
+   */
+  public HierarchicalPathFinder(int width, int depth, int size, BitSet blocked) {
+	this.width = width;
+	this.depth = depth;
+	this.size = size;
+	this.blocked = blocked;
+	tilesx = (width+size-1)/size;
+	tilesy = (depth+size-1)/size;
+	tiles = new Tile[tilesx*tilesy];
+	bfsdist = new int[size*size];
+	bfsparent = new int[size*size];
+	bfsqueue = new int[size*size];
+	scratch = new PathFinder.Scratch();
+    }
+
+  /**
+   * Forget the tiles around the rectangle from (x0,y0) to (x1,y1),
+   * where the blocked squares have changed; a tile next to the
+   * rectangle is forgotten too if the change is on its border
+   */
+  public void invalidate(int x0, int y0, int x1, int y1) {
+	int tx0 = Math.max(0,x0-1)/size, tx1 = Math.min(width-1,x1+1)/size;
+	int ty0 = Math.max(0,y0-1)/size, ty1 = Math.min(depth-1,y1+1)/size;
+	for (int tx=tx0; tx<=tx1; tx++)
+	  for (int ty=ty0; ty<=ty1; ty++) {
+		tiles[tx*tilesy+ty] = null;
+	    }
+    }
+  /**
+   * @return number of tiles worked out so far
+   */
+  public int tilesBuilt() {
+	int count = 0;
+	for (Tile t: tiles) if (t != null) count++;
+	return count;
+    }
+
+  private int tileOf(int n) {
+	return (n/depth/size)*tilesy + (n%depth)/size;
+    }
+  /**
+   * @return position of square n in the scratch arrays of its tile
+   */
+  private int local(int n) {
+	return ((n/depth)%size)*size + (n%depth)%size;
+    }
+  private boolean open(int n) {
+	return !blocked.get(n);
+    }
+
+  /**
+   * @return Tile number k, working it out if need be
+   */
+  private Tile tile(int k) {
+	if (tiles[k] == null) tiles[k] = build(k/tilesy,k%tilesy);
+	return tiles[k];
+    }
+  /**
+   * local method to find the entrances of tile (tx,ty), on each
+   * of its four borders, and the distances between them
+   */
+  private Tile build(int tx, int ty) {
+	int x0 = tx*size, y0 = ty*size;
+	int x1 = Math.min(width,x0+size)-1, y1 = Math.min(depth,y0+size)-1;
+	Tile t = new Tile();
+	t.square = new int[4*size+8];
+	t.partner = new int[4*size+8];
+	int count = 0;
+	if (x0 > 0)  // west border
+	  count = border(t,count,x0*depth+y0,(x0-1)*depth+y0,1,y1-y0+1);
+	if (x1 < width-1)  // east border
+	  count = border(t,count,x1*depth+y0,(x1+1)*depth+y0,1,y1-y0+1);
+	if (y0 > 0)  // north border
+	  count = border(t,count,x0*depth+y0,x0*depth+y0-1,depth,x1-x0+1);
+	if (y1 < depth-1)  // south border
+	  count = border(t,count,x0*depth+y1,x0*depth+y1+1,depth,x1-x0+1);
+	t.square = Arrays.copyOf(t.square,count);
+	t.partner = Arrays.copyOf(t.partner,count);
+	t.dist = new int[count][count];
+	for (int i=0; i<count; i++) {
+	  bfs(t.square[i],-1);
+	  for (int j=0; j<count; j++) t.dist[i][j] = bfsdist[local(t.square[j])];
+	  }
+	return t;
+    }
+  /**
+   * local method to add the entrances on one border: mine is the
+   * first square of this tile along the border and theirs is the
+   * square next to it in the other tile, and the border goes on for
+   * count squares, stride apart; each run of squares that are open
+   * on both sides gets an entrance in its middle, or one at each
+   * end if the run is long
+   */
+  private int border(Tile t, int n, int mine, int theirs, int stride, int count) {
+	int run = -1;  // where the current run began, or -1
+	for (int i=0; i<=count; i++) {
+	  boolean crossing = i < count && open(mine+i*stride) && open(theirs+i*stride);
+	  if (crossing && run < 0) run = i;
+	  if (crossing || run < 0) continue;
+	  int last = i-1;
+	  if (last-run+1 < 6) {
+		int m = (run+last)/2;
+		t.square[n] = mine+m*stride; t.partner[n++] = theirs+m*stride;
+	    }
+	  else {
+		t.square[n] = mine+run*stride; t.partner[n++] = theirs+run*stride;
+		t.square[n] = mine+last*stride; t.partner[n++] = theirs+last*stride;
+	    }
+	  run = -1;
+	  }
+	return n;
+    }
+  /**
+   * local method for breadth-first search within the tile of
+   * square from; afterwards bfsdist[local(v)] is the number of
+   * steps from v to from (or -1) and bfsparent[local(v)] is the
+   * next square from v toward from. Blocked squares are not
+   * entered, except for from and allowed.
+   */
+  private void bfs(int from, int allowed) {
+	int k = tileOf(from);
+	int x0 = (k/tilesy)*size, y0 = (k%tilesy)*size;
+	int x1 = Math.min(width,x0+size)-1, y1 = Math.min(depth,y0+size)-1;
+	Arrays.fill(bfsdist,-1);
+	int head = 0, tail = 0;
+	bfsdist[local(from)] = 0;
+	bfsparent[local(from)] = from;
+	bfsqueue[tail++] = from;
+	while (head < tail) {
+	  int u = bfsqueue[head++];
+	  int x = u / depth, y = u % depth;
+	  int du = bfsdist[local(u)];
+	  if (x > x0) tail = visit(u-depth,u,du,allowed,tail);
+	  if (x < x1) tail = visit(u+depth,u,du,allowed,tail);
+	  if (y > y0) tail = visit(u-1,u,du,allowed,tail);
+	  if (y < y1) tail = visit(u+1,u,du,allowed,tail);
+	  }
+    }
+  private int visit(int v, int u, int du, int allowed, int tail) {
+	int lv = local(v);
+	if (bfsdist[lv] >= 0) return tail;
+	if (v != allowed && !open(v)) return tail;
+	bfsdist[lv] = du+1;
+	bfsparent[lv] = u;
+	bfsqueue[tail] = v;
+	return tail+1;
+    }
+  /**
+   * @return a copy of the search distances of a tile
+   */
+  private int[] distances(int from, int allowed) {
+	bfs(from,allowed);
+	return bfsdist.clone();
+    }
+
+  /**
+   * @param start index of first square
+   * @param goal index of last square
+   * @return path from start to goal, going around blocked squares
+   * (start and goal may themselves be blocked), or null if there
+   * is no path; the squares of the path are worked out as they
+   * are asked for
+   */
+  public Route search(int start, int goal) {
+	if (start == goal) return new Route(new int[] { start }, new int[] { 0 });
+	int startTile = tileOf(start), goalTile = tileOf(goal);
+	int[] fromstart = distances(start,-1);  // start to its tile's squares
+	int[] togoal = distances(goal,-1);      // and the goal's tile's squares
+	int direct = -1;  // steps from start to goal within one tile
+	if (startTile == goalTile) direct = distances(goal,start)[local(start)];
+	// A* over entrances, plus start and goal
+	PathFinder.Scratch S = scratch;
+	S.reset();
+	S.put(start,0,-1);
+	S.push(start,h(start,goal),0);
+	while (S.heapsize > 0) {
+	  int gu = S.topg();
+	  int u = S.pop();
+	  int slot = S.find(u);
+	  if (S.closed[slot] || S.g[slot] < gu) continue;  // stale heap entry
+	  S.closed[slot] = true;
+	  if (u == goal) return route(S.path(goal));
+	  int k = tileOf(u);
+	  if (k == goalTile) {
+		int d = (u == start) ? direct : togoal[local(u)];
+		if (d >= 0) relax(S,u,goal,gu+d,goal);
+	    }
+	  Tile t = tile(k);
+	  for (int i=0; i<t.square.length; i++) {
+		if (u == start) {
+		  int d = fromstart[local(t.square[i])];
+		  if (d >= 0) relax(S,u,t.square[i],gu+d,goal);
+		  }
+		if (t.square[i] != u) continue;
+		relax(S,u,t.partner[i],gu+1,goal);
+		for (int j=0; j<t.square.length; j++) {
+		  if (t.dist[i][j] > 0) relax(S,u,t.square[j],gu+t.dist[i][j],goal);
+		  }
+	    }
+	  }
+	return null;
+    }
+  /**
+   * local method to offer square v, reached from square u with
+   * cost gv, to the open set
+   */
+  private void relax(PathFinder.Scratch S, int u, int v, int gv, int goal) {
+	int slot = S.find(v);
+	if (slot >= 0) {
+	  if (S.closed[slot] || S.g[slot] <= gv) return;
+	  S.g[slot] = gv;
+	  S.parent[slot] = u;
+	  }
+	else S.put(v,gv,u);
+	S.push(v,gv+h(v,goal),gv);
+    }
+  /**
+   * Manhattan distance heuristic
+   */
+  private int h(int n, int goal) {
+	return Math.abs(n/depth - goal/depth) + Math.abs(n%depth - goal%depth);
+    }
+  private Route route(int[] waypoint) {
+	int[] at = new int[waypoint.length];
+	for (int i=0; i<waypoint.length; i++) at[i] = scratch.g[scratch.find(waypoint[i])];
+	return new Route(waypoint,at);
+    }
+  /**
+   * local method to fill in the squares between a and b, which
+   * are next to each other or in the same tile, and the given
+   * number of steps apart
+   * @return squares from a to b inclusive
+   */
+  private int[] refine(int a, int b, int steps) {
+	if (steps == 1) return new int[] { a, b };  // maybe across a border
+	bfs(b,a);
+	int[] path = new int[steps+1];
+	int i = 0;
+	for (int v = a; v != b; v = bfsparent[local(v)]) path[i++] = v;
+	path[i] = b;
+	return path;
+    }
+
+  /**
+   * A path found by search(): the entrances it goes through are
+   * known, and so is its length, but the squares between entrances
+   * are only worked out when square() first asks for one of them.
+   * A Route should not be used after the blocked squares change.
+   */
+  public class Route {
+	final int[] waypoint;  // start, entrances passed, goal
+	final int[] at;        // waypoint[w] is square number at[w] of the path
+	private final int[][] segment;  // squares from waypoint w to w+1
+
+	Route(int[] waypoint, int[] at) {
+	  this.waypoint = waypoint;
+	  this.at = at;
+	  segment = new int[waypoint.length][];
+	  }
+	/**
+	 * @return number of squares in the path
+	 */
+	public int size() {
+	  return at[at.length-1]+1;
+	  }
+	/**
+	 * @return index of the i-th square of the path
+	 */
+	public int square(int i) {
+	  if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("index "+i);
+	  int w = Arrays.binarySearch(at,i);
+	  if (w >= 0) return waypoint[w];
+	  w = -w-2;  // i is between waypoint w and w+1
+	  if (segment[w] == null) segment[w] = refine(waypoint[w],waypoint[w+1],at[w+1]-at[w]);
+	  return segment[w][i-at[w]];
+	  }
+	/**
+	 * @return number of segments filled in so far
+	 */
+	public int refined() {
+	  int count = 0;
+	  for (int[] s: segment) if (s != null) count++;
+	  return count;
+	  }
+    }
+  }
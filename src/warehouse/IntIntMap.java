@@ -0,0 +1,152 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * IntIntMap is a map from int keys to int values that keeps both in
+ * plain int arrays (open addressing with linear probing), so there is
+ * no boxing into Integer and no entry objects: get() and add() do not
+ * allocate, and the arrays only grow when the map fills up.
+ *
+ * Slots are scanned directly for iteration, like this:
+ *   for (int i=0; i<m.capacity(); i++)
+ *     if (m.usedAt(i)) ... m.keyAt(i) ... m.valueAt(i) ...
+ *
+ */
+public class IntIntMap {
+  private int[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int mask;
+  private int size;
+
+  public IntIntMap() { this(16); }
+  /**
+   * @param expected number of keys, so the map need not grow
+   */
+  public IntIntMap(int expected) {
+	int capacity = 16;
+	while (capacity < 2*expected) capacity *= 2;
+	allocate(capacity);
+    }
+  private void allocate(int capacity) {
+	keys = new int[capacity];
+	values = new int[capacity];
+	used = new boolean[capacity];
+	mask = capacity-1;
+	size = 0;
+    }
+  private static int hash(int k) {
+	int h = k * 0x9E3779B1;
+	return h ^ (h >>> 16);
+    }
+  /**
+   * @return slot holding key k, or -1 if k is absent
+   */
+  private int slot(int k) {
+	for (int i = hash(k) & mask; used[i]; i = (i+1) & mask) {
+	  if (keys[i] == k) return i;
+	  }
+	return -1;
+    }
+
+  public int size() { return size; }
+  public boolean isEmpty() { return size == 0; }
+  public boolean containsKey(int k) { return slot(k) >= 0; }
+  /**
+   * @return value for key k, or 0 if k is absent
+   */
+  public int get(int k) { return get(k,0); }
+  /**
+   * @return value for key k, or missing if k is absent
+   */
+  public int get(int k, int missing) {
+	int i = slot(k);
+	return (i < 0) ? missing : values[i];
+    }
+  /**
+   * set value of key k to v
+   */
+  public void put(int k, int v) {
+	int i = hash(k) & mask;
+	for (; used[i]; i = (i+1) & mask) {
+	  if (keys[i] == k) { values[i] = v; return; }
+	  }
+	if (2*(size+1) > keys.length) {
+	  grow();
+	  put(k,v);
+	  return;
+	  }
+	used[i] = true;
+	keys[i] = k;
+	values[i] = v;
+	size++;
+    }
+  /**
+   * add delta to the value of key k (which counts as 0
+   * if absent)
+   * @return the new value
+   */
+  public int add(int k, int delta) {
+	int i = slot(k);
+	if (i >= 0) return values[i] += delta;
+	put(k,delta);
+	return delta;
+    }
+  /**
+   * remove key k, if present
+   * @return the value k had, or 0 if absent
+   */
+  public int remove(int k) {
+	int i = slot(k);
+	if (i < 0) return 0;
+	int v = values[i];
+	used[i] = false;
+	size--;
+	// shift later entries of the probe run back, so that
+	// no lookup stops early at the hole just made
+	for (int j = (i+1) & mask; used[j]; j = (j+1) & mask) {
+	  int home = hash(keys[j]) & mask;
+	  // move keys[j] into hole i unless its home is cyclically in (i,j]
+	  if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+		keys[i] = keys[j]; values[i] = values[j]; used[i] = true;
+		used[j] = false;
+		i = j;
+	    }
+	  }
+	return v;
+    }
+  public void clear() {
+	if (size == 0) return;
+	Arrays.fill(used,false);
+	size = 0;
+    }
+  private void grow() {
+	int[] okeys = keys, ovalues = values;
+	boolean[] oused = used;
+	allocate(2*okeys.length);
+	for (int i=0; i<okeys.length; i++) {
+	  if (oused[i]) put(okeys[i],ovalues[i]);
+	  }
+    }
+
+  // direct access to slots, for iterating without allocation
+  public int capacity() { return keys.length; }
+  public boolean usedAt(int i) { return used[i]; }
+  public int keyAt(int i) { return keys[i]; }
+  public int valueAt(int i) { return values[i]; }
+
+  /**
+   * @return a copy of this map
+   */
+  public IntIntMap copy() {
+	IntIntMap m = new IntIntMap(0);
+	m.keys = keys.clone();
+	m.values = values.clone();
+	m.used = used.clone();
+	m.mask = mask;
+	m.size = size;
+	return m;
+    }
+  }
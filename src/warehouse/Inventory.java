@@ -11,7 +11,12 @@ public interface Inventory {
   Item[] onShelf(Point p); // items on Shelf at Point p
   Item randomItem();       // some random item
   Shelf findItem(Item e);  // find a shelf that has this Item
+  Shelf findItem(Item e, Item[] order);  // cheapest shelf for e in an order
   int stockCount(Item x);  // quantity of x that's in stock
   int stockCount(int ItemNum);  // quantity in stock of Item #
   Item removeItem(Item I,Shelf s); // remove Item from Shelf
+  Item[] removeItems(Item[] I,Shelf s); // remove many from one Shelf
+  Item reserve(Item I,Shelf s);  // claim a unit of I on Shelf s
+  void commit(Item r);   // remove a reserved unit from its Shelf
+  void release(Item r);  // put a reserved unit back in stock
   }
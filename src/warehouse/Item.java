@@ -8,7 +8,7 @@ package warehouse;
 
 public class Item {
   public int id;  // item number, like a warehouse SKU number
-  public String description;   // text for the item
+  public String description;   // text for the item, shared with the Catalog
   Shelf place;  // where this item resides (or null)
   /**
    * @param num
@@ -20,13 +20,28 @@ public class Item {
 	id = num;
 	description = title;
     }
+  /**
+   * Create a new Item of SKU number num, with the
+   * description the standard Catalog has for it
+   */
+  public Item(int num) {
+	this(num,Catalog.standard().describe(num));
+    }
   /**
    * @author Ted Herman
    * @return Shelf for this Item
    */
   public Shelf getPlace() { return place; }
   public void setPlace(Shelf s) { place = s; }
+  /**
+   * Items are the same item when their SKU numbers are the same;
+   * the description is only looked up from the SKU number
+   */
   public boolean equals(Item other) {
-	return (this.id == other.id && this.description == other.description);
+	return other != null && this.id == other.id;
+    }
+  public boolean equals(Object other) {
+	return (other instanceof Item) && equals((Item)other);
     }
+  public int hashCode() { return id; }
   }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package warehouse;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ *
+ * LayoutFloor is a GridFloor whose layout comes from a file instead
+ * of being written into the code (as MockFloor's is). A layout file
+ * can be text, with one item per line, like this:
+ *
+ *   # the demo warehouse
+ *   size 160 200
+ *   picker 0 190
+ *   packer 0 50
+ *   shippingdock 0 0
+ *   receivingdock 80 0
+ *   charger 20 20
+ *   shelfarea 20 100 140
+ *   station 80 190
+ *
+ * where size is width and depth, the next five give (x,y), each
+ * shelfarea line gives the (x,y) of its corner and its width, and
+ * each station line gives the (x,y) of a picker station besides the
+ * picker. Or it can be binary, which save() writes: a magic number,
+ * then the same numbers as big-endian ints in the same order, with
+ * the number of shelf areas before them, and the number of stations
+ * (which may be left out, for none) before those. A binary file is
+ * memory mapped and read straight from the mapping, so there is
+ * nothing to parse, which is the way to go for huge layouts. Both
+ * kinds are checked the same way before a Floor is made from them.
+ *
+ */
+public class LayoutFloor extends GridFloor {
+  static final int MAGIC = 0x57484c31;  // "WHL1"
+
+  /**
+   * The numbers of a layout, as read from a file
+   */
+  static class Layout {
+	int width, depth;
+	Point picker, packer, shippingdock, receivingdock, charger;
+	int[] areas = new int[0];  // x, y, width of each shelf area
+	int areacount;
+	List<Point> stations = new ArrayList<Point>();  // besides the picker
+
+	void addArea(int x, int y, int w) {
+	  if (3*areacount == areas.length) areas = Arrays.copyOf(areas,2*areas.length+3);
+	  areas[3*areacount] = x; areas[3*areacount+1] = y; areas[3*areacount+2] = w;
+	  areacount++;
+	  }
+	List<ShelfArea> shelfAreas(SimRandom rand) {
+	  List<ShelfArea> list = new ArrayList<ShelfArea>(areacount);
+	  for (int i=0; i<areacount; i++) {
+		Point corner = new Point(areas[3*i],areas[3*i+1]);
+		list.add(new ShelfArea(corner,areas[3*i+2],rand));
+		}
+	  return list;
+	  }
+	/**
+	 * Make sure the layout makes a sensible Floor: every location
+	 * and station is on the floor, and the shelf areas are on the
+	 * floor, do not overlap and do not cover any location
+	 */
+	void check() {
+	  if (picker == null || packer == null || shippingdock == null
+			  || receivingdock == null || charger == null)
+		throw new IllegalArgumentException("layout is missing a location");
+	  if (width <= 0 || depth <= 0 || (long)width*depth > Integer.MAX_VALUE)
+		throw new IllegalArgumentException("bad floor size "+width+"x"+depth);
+	  List<Point> places = new ArrayList<Point>(stations);
+	  places.addAll(Arrays.asList(picker,packer,shippingdock,receivingdock,charger));
+	  for (Point p: places) {
+		if (p.x < 0 || p.x >= width || p.y < 0 || p.y >= depth)
+		  throw new IllegalArgumentException("location off the floor: "+p);
+	    }
+	  BitSet covered = new BitSet();  // squares of the shelf areas so far
+	  for (int i=0; i<areacount; i++) {
+		int x = areas[3*i], y = areas[3*i+1], w = areas[3*i+2];
+		if (w <= 0) throw new IllegalArgumentException("shelfarea width must be positive");
+		// a ShelfArea is two squares high, rows y-1 and y
+		if (x < 0 || (long)x+w > width || y < 1 || y >= depth)
+		  throw new IllegalArgumentException("shelfarea off the floor: "+new Point(x,y));
+		for (int j=x; j<x+w; j++)
+		  for (int k=y-1; k<=y; k++) {
+			if (covered.get(j*depth+k))
+			  throw new IllegalArgumentException("shelfareas overlap: "+new Point(j,k));
+			covered.set(j*depth+k);
+		    }
+	    }
+	  for (Point p: places) {
+		if (covered.get(p.x*depth+p.y))
+		  throw new IllegalArgumentException("shelfarea covers a location: "+p);
+	    }
+	  }
+    }
+
+  private LayoutFloor(Layout L, SimRandom rand) {
+	super(L.width, L.depth, L.picker, L.packer, L.shippingdock,
+		L.receivingdock, L.charger, L.shelfAreas(rand), rand);
+	for (Point p: L.stations) addPicker(p);
+    }
+
+  /**
+   * Make a Floor from a layout file, either text or binary
+   * (binary files are recognized by their magic number)
+   * @param filename is the layout file
+   * @param rand is a SimRandom for predictable randomness
+   */
+  public static LayoutFloor load(String filename, SimRandom rand) throws IOException {
+	try (FileChannel ch = FileChannel.open(Paths.get(filename),StandardOpenOption.READ)) {
+	  ByteBuffer first = ByteBuffer.allocate(4);
+	  if (ch.read(first,0) == 4 && first.getInt(0) == MAGIC) return readBinary(ch,rand);
+	  }
+	try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
+	  return readText(in,rand);
+	  }
+    }
+
+  /**
+   * Make a Floor from a text layout
+   */
+  public static LayoutFloor readText(BufferedReader in, SimRandom rand) throws IOException {
+	Layout L = new Layout();
+	String line;
+	int number = 0;
+	while ((line = in.readLine()) != null) {
+	  number++;
+	  int hash = line.indexOf('#');
+	  if (hash >= 0) line = line.substring(0,hash);
+	  line = line.trim();
+	  if (line.isEmpty()) continue;
+	  String[] words = line.split("\\s+");
+	  int[] v = new int[words.length-1];
+	  try {
+		for (int i=0; i<v.length; i++) v[i] = Integer.parseInt(words[i+1]);
+	    }
+	  catch (NumberFormatException e) {
+		throw new IllegalArgumentException("line "+number+": bad number");
+	    }
+	  String key = words[0];
+	  int wanted = key.equals("shelfarea") ? 3 : 2;
+	  if (v.length != wanted)
+		throw new IllegalArgumentException("line "+number+": "+key+" needs "+wanted+" numbers");
+	  if (key.equals("size") && (v[0] <= 0 || v[1] <= 0)
+			  || key.equals("shelfarea") && v[2] <= 0)
+		throw new IllegalArgumentException("line "+number+": "+key+" must be positive");
+	  if (key.equals("size")) { L.width = v[0]; L.depth = v[1]; }
+	  else if (key.equals("picker")) L.picker = new Point(v[0],v[1]);
+	  else if (key.equals("packer")) L.packer = new Point(v[0],v[1]);
+	  else if (key.equals("shippingdock")) L.shippingdock = new Point(v[0],v[1]);
+	  else if (key.equals("receivingdock")) L.receivingdock = new Point(v[0],v[1]);
+	  else if (key.equals("charger")) L.charger = new Point(v[0],v[1]);
+	  else if (key.equals("shelfarea")) L.addArea(v[0],v[1],v[2]);
+	  else if (key.equals("station")) L.stations.add(new Point(v[0],v[1]));
+	  else throw new IllegalArgumentException("line "+number+": unknown "+key);
+	  }
+	L.check();
+	return new LayoutFloor(L,rand);
+    }
+
+  /**
+   * Make a Floor from a binary layout, reading the ints
+   * straight out of a memory mapping of the file
+   */
+  public static LayoutFloor readBinary(FileChannel ch, SimRandom rand) throws IOException {
+	MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY,0,ch.size());
+	IntBuffer ints = map.asIntBuffer();
+	try {
+	  if (ints.get() != MAGIC) throw new IllegalArgumentException("not a binary layout");
+	  Layout L = new Layout();
+	  L.width = ints.get();
+	  L.depth = ints.get();
+	  L.picker = new Point(ints.get(),ints.get());
+	  L.packer = new Point(ints.get(),ints.get());
+	  L.shippingdock = new Point(ints.get(),ints.get());
+	  L.receivingdock = new Point(ints.get(),ints.get());
+	  L.charger = new Point(ints.get(),ints.get());
+	  L.areacount = ints.get();
+	  if (L.areacount < 0 || 3L*L.areacount > ints.remaining())
+		throw new IllegalArgumentException("binary layout is cut short");
+	  L.areas = new int[3*L.areacount];
+	  ints.get(L.areas);
+	  int stations = ints.hasRemaining() ? ints.get() : 0;
+	  for (int i=0; i<stations; i++) L.stations.add(new Point(ints.get(),ints.get()));
+	  L.check();
+	  return new LayoutFloor(L,rand);
+	  }
+	catch (BufferUnderflowException e) {
+	  throw new IllegalArgumentException("binary layout is cut short");
+	  }
+    }
+
+  /**
+   * Write the layout of any Floor as a binary layout file
+   */
+  public static void save(Floor F, String filename) throws IOException {
+	int count = F.getNumShelfAreas();
+	List<Point> stations = F.getPickers().subList(1,F.getPickers().size());
+	ByteBuffer buf = ByteBuffer.allocate(4*(15+3*count+2*stations.size()));
+	buf.putInt(MAGIC);
+	buf.putInt(F.getWarehouseWidth()).putInt(F.getWarehouseDepth());
+	Point[] places = { F.getPicker(), F.getPacker(), F.getShippingDock(),
+		F.getReceivingDock(), F.getCharger() };
+	for (Point p: places) buf.putInt(p.x).putInt(p.y);
+	buf.putInt(count);
+	for (int i=0; i<count; i++) {
+	  ShelfArea a = F.getShelfArea(i);
+	  buf.putInt(a.getCorner().x).putInt(a.getCorner().y).putInt(a.getWidth());
+	  }
+	buf.putInt(stations.size());
+	for (Point p: stations) buf.putInt(p.x).putInt(p.y);
+	buf.flip();
+	try (FileChannel ch = FileChannel.open(Paths.get(filename),StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING)) {
+	  while (buf.hasRemaining()) ch.write(buf);
+	  }
+    }
+  }
@@ -2,13 +2,73 @@ package warehouse;
 
 import java.util.*;
 
+/**
+ *
+ * MockOrders does the work of the Picker. Orders wait in a queue,
+ * and are picked in waves of up to wavesize orders: a wave starts
+ * with the most urgent order, and takes in the queued orders (among
+ * the next LOOKAHEAD) whose items are on the same shelves as the
+ * wave's items. Each item of the wave is reserved on some Shelf, and each
+ * Shelf is requested once for the whole wave; when a Robot brings it
+ * to the Picker, every item of the wave waiting for that Shelf is
+ * picked in the one visit. With wavesize 1 (the default) it is one
+ * order at a time, as in the design notes.
+ *
+ * The queue is a heap (a PriorityQueue) ordered by slack: the due
+ * tick less an estimate of the ticks picking takes (ITEMTICKS per
+ * item), so an order that is due soon, or big, goes first; ties go
+ * to the more urgent priority class, then to the first to arrive.
+ * Slack only changes with the clock, which moves every order alike,
+ * so the order in the heap stays right without updates. RUSH orders
+ * are kept in a heap of their own, and do not wait for the running
+ * wave to finish (nor for other orders with less slack): every tick
+ * they join the wave.
+ * Within a wave, a Shelf is only requested when a Robot is idle to
+ * fetch it, for the waiting item whose order has the least slack,
+ * so urgent items are not queued behind a bulk order's shelves.
+ *
+ * MockOrders counts the Shelf trips to the Picker, the orders filled
+ * and the orders filled after they were due (SLA misses), so the
+ * trips per order of different wave sizes can be compared.
+ *
+ * A MockOrders works one picker station (the Floor's getPicker(),
+ * unless it is given another), with its own queue and wave; where
+ * the Floor has several stations, an OrderRouter has a MockOrders
+ * for each of them.
+ *
+ */
 public class MockOrders implements Orders, Tickable, Picker {
-	
+  static final int LOOKAHEAD = 4;  // queued orders looked at per wave slot
+  static final int ITEMTICKS = 200; // estimated ticks to pick one item
+
+  /**
+   * An item of an order, and the unit reserved for it (or null)
+   */
+  static class Pick {
+	Order order;
+	OrderItem want;
+	Item unit;
+	Pick(Order order, OrderItem want) { this.order = order; this.want = want; }
+    }
+
   private Inventory I;
   private RobotScheduler R;
-  private LinkedList<Order> orderqueue;
+  private Point station;  // picker station, or null for the Floor's Picker
+  private PriorityQueue<Order> orderqueue;
+  private PriorityQueue<Order> rushqueue;  // RUSH orders, to join the wave
   private SimRandom randomsource;
-  
+  private Address address;
+  private OrderGenerator generator;  // makes new orders each tick, or null
+  private int wavesize = 1;
+  private List<Order> wave;                // orders being picked
+  private List<Pick> waiting;              // wave items with no Shelf yet
+  private Map<Shelf,List<Pick>> requested;  // requested shelf -> its picks
+  private int clock;
+  private long arrivals;  // orders queued so far
+  int trips;   // shelves brought to the Picker
+  int filled;  // orders with all items in the bin
+  int late;    // orders filled after they were due
+
   /**
    * @author Ted Herman
    * @param Inventory component, needed to create sensible
@@ -18,198 +78,240 @@ public class MockOrders implements Orders, Tickable, Picker {
    */
   public MockOrders(Inventory I, 
 		  RobotScheduler R, SimRandom rand) {
-	this.I = I; // so we can later call upon Inventory methods
-	this.R = R; // so that later, we can call RobotScheduler
-	randomsource = rand;
-	orderqueue = new LinkedList<Order>();
+	this(I,R,rand,null);
 	for (int i=0;i<3;i++) {
-	  orderqueue.addLast(getRandomOrder());
+	  addOrder(getRandomOrder());
 	  }
     }
-  
   /**
-   * @author Ted Herman
-   * 
-   * This tick method would be where Orders does the 
-   * real work (see design README)
-   * 
+   * Constructor of a MockOrders for picker station, which
+   * starts with no orders
    */
-  public void tick(int count) {
-	/**
-	 * What tick should do (vague description)
-	 * 1. if there is no Order in orderqueue, then
-	 *    maybe it's time to generate a random new
-	 *    Order and put it in the queue? Another idea
-	 *    would be to delay putting a new Order in the 
-	 *    queue (postpone that to a later tick)
-	 * 2. if no Order being worked on, and
-	 *    there is an Order in orderqueue, ask Belt 
-	 *    if a new Bin is available - a "no" from the 
-	 *    Belt would mean Orders has to wait - so ignore
-	 *    this tick. 
-	 * 3. if Belt says a new Bin can be started, and 
-	 *    there's an Order in the orderqueue, time to 
-	 *    start working (go to next step in this same tick).
-	 *    Probably some variables/fields will be changed
-	 *    to indicate that an Order is in progress, being
-	 *    worked on by the Picker.
-	 * 4. if an Order is being worked on (need additional
-	 *    variable/fields to know this), then check if 
-	 *    it has any Items that need fetching.
-	 * 5. if an Item needs fetching, do pretty much what
-	 *    is done in TestRobotScheduler, but when notify()
-	 *    of the Picker interface is called (see below), then
-	 *    get take the desired OrderItem from the Shelf that
-	 *    the Robot brought, mark that OrderItem as being
-	 *    in the Bin.
-	 * 6. if all OrderItems are filled from the current 
-	 *    Order being worked on, then tell the Belt that 
-	 *    the Bin at the Picker is ready to go. 
-	 *    
-	 * Special Note on Step 5. In MockRobotScheduler, it's 
-	 * assumed that whatever an Order needs, that OrderItem
-	 * will be on some Shelf. A more realistic idea is to 
-	 * attempt to find the OrderItem on a Shelf, but if it 
-	 * cannot be found, tell Inventory (so Inventory would need
-	 * to have a new method for that). Then Orders is stuck, 
-	 * waiting for the desired OrderItem to be present, checking
-	 * that in each tick(). Eventually, after Inventory has done
-	 * its job, Orders will find a Shelf with the needed OrderItem
-	 * and continue.
-	 */
+  public MockOrders(Inventory I, RobotScheduler R, SimRandom rand, Point station) {
+	this.I = I; // so we can later call upon Inventory methods
+	this.R = R; // so that later, we can call RobotScheduler
+	this.station = station;
+	randomsource = rand;
+	address = new Address(rand);
+	Comparator<Order> urgency = new Comparator<Order>() {
+	  public int compare(Order a, Order b) {
+		int c = Long.compare(slack(a),slack(b));
+		if (c == 0) c = Integer.compare(a.priority,b.priority);
+		if (c == 0) c = Long.compare(a.sequence,b.sequence);
+		return c;
+		}
+	  };
+	orderqueue = new PriorityQueue<Order>(11,urgency);
+	rushqueue = new PriorityQueue<Order>(11,urgency);
+	wave = new ArrayList<Order>();
+	waiting = new ArrayList<Pick>();
+	requested = new LinkedHashMap<Shelf,List<Pick>>();
     }
 
   /**
-   * @author Ted Herman
-   * Picker event notify(robot), not finished.
+   * Set how many orders are picked together (from the next wave)
    */
-  public void notify(Robot r, Shelf s) { 
-	// should be code here to remove desired Item OrderItem from Shelf s
-	// (Inventory has a method to do that)
-	// mark that Item as being checked off in the Order
-	// and if this is the last Item needed, tell Belt 
-	// that a Bin is done.
-	R.returnShelf(r);  // tell Robot to return Shelf back to its home
-    };
-  
+  public void setWaveSize(int n) {
+	assert n > 0;
+	wavesize = n;
+    }
+  public int getWaveSize() { return wavesize; }
   /**
-   * @author Ted Herman
-   * creates a random Order
+   * @return the picker station, or null for the Floor's Picker
    */
-  public Order getRandomOrder() {
-	String addr = new Address(randomsource).randomAddress();
-	OrderItem[] orderitems = new OrderItem[1+randomsource.nextInt(2)];
-	for (int i=0;i<orderitems.length;i++) {
-	  orderitems[i] = new OrderItem(I.randomItem());
-	  }
-	return new Order(addr,orderitems);
+  public Point getStation() { return station; }
+  /**
+   * Have generator make the new orders of each tick
+   */
+  public void setGenerator(OrderGenerator generator) {
+	this.generator = generator;
     }
-  }
-
-/**
- * 
- * @author Ted Herman
- * A local class just to supply addresses
- * for orders in the Orders component
- *
- */
-class Address {
-	
-  SimRandom SR;
-  
   /**
-   * @author Ted Herman
-   * @param SR is SimRandom object, so that all the random
-   * choices by methods of Address will be predictably random
+   * Put Order o in the queue; it arrives now unless it has an
+   * arrival tick already (as a recorded order does), and if it
+   * has no due tick, it is due the SLA of its priority class
+   * from its arrival
    */
-  public Address(SimRandom SR) {
-	this.SR = SR;
+  public void addOrder(Order o) {
+	if (o.arrival < 0) o.arrival = clock;
+	if (o.due < 0) o.due = o.arrival + Order.SLA[o.priority];
+	o.sequence = arrivals++;
+	if (o.priority == Order.RUSH) rushqueue.add(o);
+	else orderqueue.add(o);
     }
-
   /**
-   * @author Ted Herman
-   * @param R is a SimRandom for predictability in randomness
-   * @return String containing a random address for an order
-   */
-  public String randomAddress() {
-	String FirstName = randomFirstName();
-	String LastName = randomLastName();
-	String StreetNumber = new Integer(randomStreetNumber()).toString();
-	String StreetName = randomStreetName();
-	String City = randomCity();
-	String State = randomState();
-	String ZipCode = randomZip();
-	String Address = FirstName + " " +
-	  LastName + "\n" + StreetNumber + " " +
-	  StreetName + "\n" + City + " " + State + ZipCode;
-	return Address;
+   * @return slack of Order o, less the current tick: its due tick
+   * less the ticks its items are estimated to take
+   */
+  static long slack(Order o) {
+	return (long)o.due - (long)ITEMTICKS*o.orderitems.length;
     }
   /**
-   * @author Ted Herman
-   * @return a string containing a random street name
+   * @return number of orders queued or being picked
    */
-  private String randomStreetName() {
-	final String[] baseNames = {"Park Street",
-			"Main Street", "Washington Boulevard",
-			"Third Street", "Park Road",
-			"Maple Street", "Hill Road"};
-	return baseNames[SR.nextInt(baseNames.length)];
+  public int pending() {
+	return orderqueue.size() + rushqueue.size() + wave.size();
     }
   /**
-   * @author Ted Herman
-   * @return an integer in the range [1,999] for street address
+   * @return Shelf trips to the Picker per order filled
    */
-  private int randomStreetNumber () {
-	return 1+SR.nextInt(998);
+  public double tripsPerOrder() {
+	return (filled == 0) ? 0 : (double)trips/filled;
+    }
+  public String report() {
+	return String.format("orders: %d filled in waves of %d, %.2f shelf trips per order, %d late",
+			filled,wavesize,tripsPerOrder(),late);
     }
+
   /**
-   * @author Ted Herman
-   * @return a random first name for an address
+   * The tick starts a wave when the last one is done, and finds
+   * a Shelf for each item of the wave that has none yet (an item
+   * out of stock keeps waiting, and is looked for again next tick).
+   * Bins are not taken from the Belt, which has none to give yet;
+   * an order is done when all of its items are in its bin.
    */
-  private String randomFirstName() {
-	final String[] baseFirstNames = {"Dakota", "Emma",
-			"Julian", "Nigella", "Will", "Asti", "Lee",
-			"Pat", "Mavis", "Jerome", "Lilly", "Tess"};
-	return baseFirstNames[SR.nextInt(baseFirstNames.length)];
-	}
+  public void tick(int count) {
+	clock = count;
+	if (generator != null) {
+	  for (int n = generator.arrivals(); n > 0; n--) addOrder(generator.next());
+	  }
+	if (wave.isEmpty() && !orderqueue.isEmpty()) startWave();
+	// rush orders join the wave that is being picked
+	while (!rushqueue.isEmpty()) join(rushqueue.poll());
+	Collections.sort(waiting,new Comparator<Pick>() {
+	  public int compare(Pick a, Pick b) {
+		return Long.compare(slack(a.order),slack(b.order));
+		}
+	  });
+	Iterator<Pick> it = waiting.iterator();
+	while (it.hasNext()) {
+	  if (assign(it.next())) it.remove();
+	  }
+    }
   /**
-   * @author Ted Herman
-   * @return a random last name for an address
+   * local method to take the next wave of orders off the queue
    */
-  private String randomLastName() {
-	final String[] baseLastNames = {"Parker","Mason",
-				"Smith","Wright","Jefferson","Iqbal",
-				"Owens","Lafleur","Metselen","Vinceroy",
-				"Saville","Troitski","Andrews"};
-	return baseLastNames[SR.nextInt(baseLastNames.length)];
+  private void startWave() {
+	Set<Shelf> shelves = new HashSet<Shelf>();
+	Order first = orderqueue.poll();
+	wave.add(first);
+	shelves.addAll(shelvesOf(first));
+	// the next most urgent orders, taken off the heap while
+	// the wave is chosen from them, and the rest put back
+	List<Order> candidates = new ArrayList<Order>();
+	while (candidates.size() < LOOKAHEAD*(wavesize-1) && !orderqueue.isEmpty()) {
+	  candidates.add(orderqueue.poll());
+	  }
+	while (wave.size() < wavesize && !candidates.isEmpty()) {
+	  // of the candidates, the first sharing most shelves
+	  int best = 0, bestshared = -1;
+	  for (int i=0; i<candidates.size(); i++) {
+		int shared = 0;
+		for (Shelf s: shelvesOf(candidates.get(i))) if (shelves.contains(s)) shared++;
+		if (shared > bestshared) { best = i; bestshared = shared; }
+	    }
+	  Order o = candidates.remove(best);
+	  wave.add(o);
+	  shelves.addAll(shelvesOf(o));
+	  }
+	orderqueue.addAll(candidates);
+	for (Order o: wave) {
+	  for (OrderItem e: o.getOrderItems()) if (!e.filled()) waiting.add(new Pick(o,e));
+	  }
     }
   /**
-   * @author Ted Herman
-   * @return a random city name
+   * local method to add Order o to the wave being picked
    */
-  private String randomState() {
-	final String[] baseState = {"IA","NE","MO",
-				"IL","KS","MN","SD","AR","OK","TX"};
-	return baseState[SR.nextInt(baseState.length)];
+  private void join(Order o) {
+	wave.add(o);
+	for (OrderItem e: o.getOrderItems()) if (!e.filled()) waiting.add(new Pick(o,e));
     }
   /**
-   * @author Ted Herman
-   * @return a random state code (two letters)
+   * @return the shelves Inventory would fetch the items of o from
    */
-  private String randomCity() {
-	final String[] baseCity = {"Springfield","Clinton",
-				"Madison","Franklin","Chester","Marion",
-				"Greenville","Salem","Anytown","Hope"};
-	return baseCity[SR.nextInt(baseCity.length)];
+  private Set<Shelf> shelvesOf(Order o) {
+	Set<Shelf> shelves = new HashSet<Shelf>();
+	for (OrderItem e: o.getOrderItems()) {
+	  Shelf s = I.findItem(e);
+	  if (s != null) shelves.add(s);
+	  }
+	return shelves;
     }
+  /**
+   * local method to reserve a unit of waiting wave item p, on a
+   * Shelf already requested if one has it, else (if a Robot is
+   * idle to fetch it) on the Shelf Inventory finds, which is then
+   * requested
+   * @return false if p has to wait
+   */
+  private boolean assign(Pick p) {
+	for (Map.Entry<Shelf,List<Pick>> m: requested.entrySet()) {
+	  p.unit = I.reserve(p.want,m.getKey());
+	  if (p.unit != null) {
+		m.getValue().add(p);
+		return true;
+	    }
+	  }
+	if (R.idleRobots() == 0) return false;
+	Shelf s = I.findItem(p.want);
+	if (s == null) return false;
+	p.unit = I.reserve(p.want,s);
+	if (p.unit == null) return false;
+	List<Pick> picks = new ArrayList<Pick>();
+	picks.add(p);
+	requested.put(s,picks);
+	if (station == null) R.requestShelf(s,this);
+	else R.requestShelf(s,this,station);
+	return true;
+    }
+
+  /**
+   * Picker event notify(robot): take every unit reserved on
+   * Shelf s for the wave, and any waiting wave item s also has,
+   * put them in their orders' bins, and send s back
+   */
+  public void notify(Robot r, Shelf s) { 
+	assert station == null || r.location.equals(station);
+	trips++;
+	List<Pick> picks = requested.remove(s);
+	if (picks != null) {
+	  for (Pick p: picks) {
+		I.commit(p.unit);
+		p.want.setFilled();
+	    }
+	  }
+	Iterator<Pick> it = waiting.iterator();
+	while (it.hasNext()) {
+	  Pick p = it.next();
+	  Item unit = I.reserve(p.want,s);
+	  if (unit == null) continue;
+	  I.commit(unit);
+	  p.want.setFilled();
+	  it.remove();
+	  }
+	Iterator<Order> w = wave.iterator();
+	while (w.hasNext()) {
+	  Order o = w.next();
+	  if (o.getUnfilledItem() == null) {
+		w.remove();
+		o.filledat = clock;
+		filled++;
+		if (o.isLate()) late++;
+	    }
+	  }
+	R.returnShelf(r);  // tell Robot to return Shelf back to its home
+    };
+  
   /**
    * @author Ted Herman
-   * @return a random state code (two letters)
+   * creates a random Order
    */
-  private String randomZip() {
-    String ZipCode = "";
-    for (int i=0; i<6; i++) 
-      ZipCode += "0123456789".charAt(SR.nextInt(10));
-    return ZipCode;
+  public Order getRandomOrder() {
+	String addr = address.randomAddress();
+	OrderItem[] orderitems = new OrderItem[1+randomsource.nextInt(2)];
+	for (int i=0;i<orderitems.length;i++) {
+	  orderitems[i] = new OrderItem(I.randomItem());
+	  }
+	return new Order(addr,orderitems);
+    }
   }
-}
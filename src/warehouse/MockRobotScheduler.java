@@ -1,78 +1,137 @@
 package warehouse;
 
+import java.util.*;
+
 public class MockRobotScheduler implements RobotScheduler, Tickable {
-	
+
   Floor F;
-  Robot[] robots; // someday could be two or more robots
-	
+  Robot[] robots;
+  CooperativePlanner planner; // plans paths that avoid other Robots
+  LinkedList<ShelfRequest> requests; // waiting for an idle Robot
+  int clock;        // number of the next tick to do
+  boolean ticking;  // true while tick() is moving Robots
+  private boolean[] left;  // Robots that left their cells this tick
+
+  /**
+   * A request for some Robot to bring a Shelf to a Picker (at
+   * one of the picker stations) or to a Dock; it waits in
+   * requests until a Robot is idle
+   */
+  static class ShelfRequest {
+	Shelf shelf;
+	Picker picker;
+	Point station;
+	Dock dock;
+	ShelfRequest(Shelf s, Picker p, Point t, Dock d) { shelf = s; picker = p; station = t; dock = d; }
+    }
+
   /**
    * @author Ted Herman
    * @param Floor object.
    * Floor is needed to find location of charger, etc.
    */
   public MockRobotScheduler(Floor F) {
+	this(F,1);
+    }
+  /**
+   * @param Floor object.
+   * @param count is how many Robots there are; the first Robot
+   * starts at the charger and the others start on squares near it,
+   * and each Robot goes back to its own starting square when idle
+   */
+  public MockRobotScheduler(Floor F, int count) {
 	this.F = F;
-	robots = new Robot[1];
-	robots[0] = new Robot(F.getCharger()); // initially at the charger
-	Cell t = F.getCell(F.getCharger());    // occupy that cell
-	t.setContents(robots[0]);
+	requests = new LinkedList<ShelfRequest>();
+	clock = 0;
+	if (F instanceof GridFloor) planner = new CooperativePlanner((GridFloor)F);
+	List<Point> homes = homeSquares(count);
+	robots = new Robot[count];
+	left = new boolean[count];
+	for (int i=0; i<count; i++) {
+	  robots[i] = new Robot(homes.get(i)); // initially at the charger
+	  robots[i].id = i;
+	  Cell t = F.getCell(homes.get(i));    // occupy that cell
+	  t.setContents(robots[i]);
+	  if (planner != null) {
+		planner.getReservations().park(index(t),0,i);
+	    }
+	  }
     }
-	
+
   /**
    * @author Ted Herman
-   * 
+   *
    * The tick() method is where the real work would be done,
-   * see the design README document	
+   * see the design README document
    */
-  public void tick(int count) { 
-	// Look to see if any Robot should move
+  public void tick(int count) {
+	if (planner != null) planner.getReservations().advance(clock);
+	dispatch();
+	// Robots that could not plan a path last time try again
+	for (Robot e: robots) {
+	   if (e.path == null && e.goal != null && clock >= e.retry) travel(e,e.goal);
+	   }
+	// Look to see if any Robot should move; all moving Robots
+	// leave their cells before any enter, so that one Robot can
+	// follow right behind another (a Robot given a path while
+	// the others move, say by a notify(), starts next tick)
+	ticking = true;
+	Arrays.fill(left,false);
+	for (Robot e: robots) {
+	   if (e.path == null) continue;
+	   leave(e,F.getCell(e.location));
+	   left[e.id] = true;
+	   }
 	for (Robot e: robots) {
-	   if (e.path != null) moveRobot(e);
+	   if (e.path != null && left[e.id]) moveRobot(e);
 	   }
-    };	
+	ticking = false;
+	clock++;
+    };
   /**
    * @param r is a Robot to move along its path, and if
    * the Robot reaches the end of the path, then decide
    * on where it should go next (if anywhere).
    */
-  private void moveRobot(Robot r) { 
+  private void moveRobot(Robot r) {
     // some initial assertions say what is the expected precondition
     assert r.path != null;
-    assert r.path.size() > 0;
-    Cell tempcell = F.getCell(r.location);
-    assert tempcell.getContents() == r || tempcell.getShadow() == r;
-    tempcell.setContents(null); // Robot will no longer be in this cell
-    tempcell.setShadow(null);
-	if (r.path.size()>1) {
-	   r.location = r.path.get(0);  // move to first point in path
-	   r.path.remove(0);  // remove first point in path
-	   tempcell = F.getCell(r.location);
-	   tempcell.setContents(r);  // robot has moved to new place
+    assert r.path.size() > r.step;
+    Cell tempcell;
+	if (r.path.size()-r.step>1) {
+	   r.location = r.path.get(r.step);  // move to next point in path
+	   r.step++;  // step past that point in path
+	   enter(r,F.getCell(r.location));  // robot has moved to new place
 	   return;
 	   }
 	// when path has one Point, we arrive in this tick to target
-	Point goal = r.path.get(0);
+	Point goal = r.path.get(r.step);
 	r.location = goal;
 	tempcell = F.getCell(goal);
+	// a square near the goal to wait on is entered like any
+	// square on the way (it may be under a Shelf)
+	if (r.waiting) enter(r,tempcell);
 	// on arrival to Shelf, validate there is a Shelf there
-	if (r.state == Robot.pickershelfbound 
+	else if (r.state == Robot.pickershelfbound
 			|| r.state == Robot.dockshelfbound) {
 	   assert tempcell.getContents() instanceof Shelf;
 	   assert r.shelf == tempcell.getContents();
 	   tempcell.setShadow(r);
 	   }
 	// in any other case, cell should empty
-	else { 
-	  assert tempcell.getContents() == null; 
+	else {
+	  assert tempcell.getContents() == null;
 	  tempcell.setContents(r);
 	  }
 	// System.out.println("robot movesto "+goal+" state "+r.state);
-	r.path = null;
-	switch (r.state) { 
+	r.setPath(null);
+	if (r.waiting) return;  // only near goal, try again next tick
+	r.goal = null;
+	switch (r.state) {
 	// these are cases of reaching goal in path
 	case Robot.pickershelfbound:
 	   r.shelf.pickup();  // robot claims this shelf
-	   r.path = F.getPath(r.location,F.getPicker());
+	   travel(r,r.station);
 	   r.state = Robot.pickerbound;  // now heading to Picker
 	   break;
 	case Robot.pickerbound:
@@ -86,12 +145,12 @@ public class MockRobotScheduler implements RobotScheduler, Tickable {
 	   tempcell.setContents(r.shelf);
 	   tempcell.setShadow(r);
 	   r.shelf = null;
-	   r.path = F.getPath(goal,F.getCharger());
+	   travel(r,r.home);
 	   r.state = Robot.chargerbound;
 	   break;
 	case Robot.dockshelfbound:
 	   r.shelf.pickup();  // robot claims this shelf
-	   r.path = F.getPath(r.location,F.getReceivingDock());
+	   travel(r,F.getReceivingDock());
 	   r.state = Robot.dockbound;  // now heading to Dock
 	   break;
 	case Robot.dockbound:
@@ -103,25 +162,99 @@ public class MockRobotScheduler implements RobotScheduler, Tickable {
 	   break;   // just wait around in these cases
 	case Robot.chargerbound:
 	   r.state = Robot.idle;
+	   dispatch();  // maybe a request was waiting for this Robot
 	   break;
 	   }
 	return;
     }
-  
+
+  /**
+   * Local method for a Robot leaving a Cell: the Robot might
+   * be the contents of the Cell, or it might be the shadow under
+   * a Shelf; and if the Robot has just picked up the Shelf in
+   * this Cell, the Shelf leaves along with the Robot.
+   */
+  private void leave(Robot r, Cell c) {
+	assert c.getContents() == r || c.getShadow() == r;
+	if (c.getContents() == r) c.setContents(null);
+	if (c.getShadow() == r) c.setShadow(null);
+	if (r.shelf != null && !r.shelf.onFloor()
+			&& c.getContents() == r.shelf) c.setContents(null);
+    }
+  /**
+   * Local method for a Robot entering a Cell along its path;
+   * a Robot not carrying a Shelf can drive under a Shelf, and
+   * then it is the shadow of that Cell.
+   */
+  private void enter(Robot r, Cell c) {
+	if (c.getContents() == null) { c.setContents(r); return; }
+	assert c.getContents() instanceof Shelf;
+	assert r.shelf == null || r.shelf.onFloor();
+	assert c.getShadow() == null;
+	c.setShadow(r);
+    }
+
+  /**
+   * Local method to give Robot r a path to goal; with more than
+   * one Robot, the path is planned around the paths of the other
+   * Robots (and it may have waits). If no such path can be found
+   * now, r stays where it is and tries again in the next tick; if
+   * that is because another Robot is at the goal, r first goes to
+   * a waiting square near the goal.
+   */
+  private void travel(Robot r, Point goal) {
+	boolean carrying = r.shelf != null && !r.shelf.onFloor();
+	r.goal = goal;
+	if (planner == null) {
+	  r.setPath(F.getPath(r.location,goal,carrying));
+	  return;
+	  }
+	// plans made while Robots move start at the next tick
+	int t0 = ticking ? clock+1 : clock;
+	int start = index(r.location), end = index(goal);
+	int[] squares = planner.plan(r.id,start,end,t0,carrying);
+	if (squares == null && planner.taken(end,r.id) && !r.waiting) {
+	  // wait near the goal until the Robot there leaves
+	  int w = planner.waitingSquare(r.id,end,carrying,t0);
+	  if (w >= 0) {
+		squares = planner.plan(r.id,start,w,t0,carrying);
+		r.waiting = (squares != null);
+	    }
+	  }
+	else if (squares != null) r.waiting = false;
+	if (squares == null) {
+	  // back off, so Robots that are stuck don't search every tick
+	  r.setPath(null);
+	  r.retry = clock + (1 << Math.min(r.failures,5));
+	  r.failures++;
+	  return;
+	  }
+	r.failures = 0;
+	Point[] path = new Point[squares.length];
+	for (int k=0; k<squares.length; k++) path[k] = ((GridFloor)F).cells[squares[k]];
+	r.setPath(Collections.unmodifiableList(Arrays.asList(path)));
+    }
+  private int index(Point p) {
+	return p.x*F.getWarehouseDepth() + p.y;
+    }
+
   /**
    * @param s is a Shelf to fetch and bring to the picker
    * location (which the Floor knows)
    * @param p is a Picker interface, implemented by Orders,
-   * which invoked this method - p is essentially a 
+   * which invoked this method - p is essentially a
    * "callback" object to notify Orders at some later tick()
    */
-  public void requestShelf(Shelf s, Picker p) { 
-	Point target = s.home; // where Shelf sits
-	Robot robot = findRobot(); // get some idle robot
-	robot.path = F.getPath(robot.location,target);
-	robot.state = Robot.pickershelfbound;
-	robot.picker = p;
-	robot.shelf = s;  // don't have it yet, but will get it
+  public void requestShelf(Shelf s, Picker p) {
+	requestShelf(s,p,F.getPicker());
+    };
+  /**
+   * @param s is a Shelf to fetch and bring to picker station
+   * @param station, for Picker p
+   */
+  public void requestShelf(Shelf s, Picker p, Point station) {
+	requests.addLast(new ShelfRequest(s,p,station,null));
+	dispatch();
     };
   /**
    * @param s is a Shelf to fetch and bring to the receiving
@@ -130,25 +263,103 @@ public class MockRobotScheduler implements RobotScheduler, Tickable {
    * which invoked this method. The d parameter is thus a
    * "callback" object to notify Inventory at some later tick()
    */
-  public void requestShelf(Shelf s, Dock d) { };
+  public void requestShelf(Shelf s, Dock d) {
+	requests.addLast(new ShelfRequest(s,null,null,d));
+	dispatch();
+    };
   /**
-   * Command to return a robot carrying a shelf back to 
-   * a ShelfArea on the Floor and put it down. Then the 
-   * @param r is a Robot which is carrying a Shelf
+   * Command to return a robot carrying a shelf back to
+   * a ShelfArea on the Floor and put it down. Then the
+   * @param r is a Robot which is carrying a Shelf, at
+   * the Picker or at the Dock
    */
-  public void returnShelf(Robot r) { 
-	assert r.state == Robot.atpicker;
-	r.path = F.getPath(r.location,r.shelf.home);
-	r.state = Robot.afterpickershelfbound;
+  public void returnShelf(Robot r) {
+	assert r.state == Robot.atpicker || r.state == Robot.atdock;
+	travel(r,r.shelf.home);
+	r.state = (r.state == Robot.atpicker) ? Robot.afterpickershelfbound
+			: Robot.afterdockshelfbound;
     }
   /**
-   * find an available Robot (which is not in use)
+   * @return number of idle Robots, less the requests
+   * that are waiting for one
    */
-  private Robot findRobot() {
-	// currently there is only one robot, this is trivial
-	Robot r = robots[0];
-	assert r.state == Robot.idle;
-	assert r.shelf == null;
-	return r;
+  public int idleRobots() {
+	int count = 0;
+	for (Robot r: robots) if (r.state == Robot.idle) count++;
+	return Math.max(0,count-requests.size());
+    }
+  /**
+   * Local method to hand waiting requests to idle Robots, in the
+   * order they were made; a request for a Shelf that is away from
+   * home, or that some Robot is already going for, waits its turn
+   */
+  private void dispatch() {
+	Iterator<ShelfRequest> it = requests.iterator();
+	while (it.hasNext()) {
+	  ShelfRequest q = it.next();
+	  if (!q.shelf.onFloor() || claimed(q.shelf)) continue;
+	  Robot robot = findRobot(q.shelf.home); // get some idle robot
+	  if (robot == null) return;  // all busy, try again later
+	  it.remove();
+	  robot.picker = q.picker;
+	  robot.station = q.station;
+	  robot.dock = q.dock;
+	  robot.shelf = q.shelf;  // don't have it yet, but will get it
+	  robot.state = (q.dock == null) ? Robot.pickershelfbound : Robot.dockshelfbound;
+	  travel(robot,q.shelf.home);
+	  }
+    }
+  /**
+   * @return true if some Robot is going for, or has, Shelf s
+   */
+  private boolean claimed(Shelf s) {
+	for (Robot e: robots) if (e.shelf == s) return true;
+	return false;
+    }
+  /**
+   * find an available Robot (which is not in use), the
+   * nearest one to target, or null if all are busy
+   */
+  private Robot findRobot(Point target) {
+	Robot best = null;
+	int bestdistance = Integer.MAX_VALUE;
+	for (Robot r: robots) {
+	  if (r.state != Robot.idle) continue;
+	  assert r.shelf == null;
+	  int d = Math.abs(r.location.x-target.x) + Math.abs(r.location.y-target.y);
+	  if (d < bestdistance) { best = r; bestdistance = d; }
+	  }
+	return best;
+    }
+  /**
+   * Local method to choose the starting (and idle) squares of the
+   * Robots: the charger, then the nearest empty squares to it that
+   * are not in a shelf area; only squares with x and y both even
+   * (like the charger) are used, so idle Robots never wall each
+   * other in
+   */
+  private List<Point> homeSquares(int count) {
+	List<Point> homes = new ArrayList<Point>();
+	Point c = F.getCharger();
+	for (int d=0; homes.size()<count; d++) {
+	  if (d > F.getWarehouseWidth()+F.getWarehouseDepth())
+		throw new IllegalArgumentException("no room for "+count+" robots");
+	  // squares at Manhattan distance d from the charger
+	  for (int dx=-d; dx<=d && homes.size()<count; dx++) {
+		int dy = d - Math.abs(dx);
+		addHome(homes,c.x+dx,c.y-dy);
+		if (dy != 0 && homes.size()<count) addHome(homes,c.x+dx,c.y+dy);
+	    }
+	  }
+	return homes;
+    }
+  private void addHome(List<Point> homes, int x, int y) {
+	Cell t = F.getCell(x,y);
+	if (t == null || t.getContents() != null) return;
+	if ((x-F.getCharger().x)%2 != 0 || (y-F.getCharger().y)%2 != 0) return;
+	for (int i=0; i<F.getNumShelfAreas(); i++) {
+	  if (F.getShelfArea(i).hasWithin(t)) return;
+	  }
+	homes.add(t);
     }
   }
@@ -1,18 +1,35 @@
 package warehouse;
 
 public class Order {
+  static final int RUSH = 0, STANDARD = 1, BULK = 2;  // priority classes
+  static final int[] SLA = { 1000, 4000, 16000 };  // ticks from arrival to due, by class
   String address;
   OrderItem[] orderitems;
   boolean isFilled;
+  int priority;      // RUSH, STANDARD or BULK
+  int due;           // tick it should be filled by, or -1 until it arrives
+  int arrival = -1;  // tick it arrived, or -1 until it is queued
+  int filledat = -1; // tick its last item went in the bin
+  long sequence;     // order of arrival, for ties in the queue
   /**
    * @author Ted Herman
    * @param addr is a shipping address for the order
    * @param items is an array of OrderItem objects
    */
   public Order(String addr,OrderItem[] items) {
+	this(addr,items,STANDARD,-1);
+    }
+  /**
+   * @param priority is RUSH, STANDARD or BULK
+   * @param due is the tick to fill it by, or -1 for the
+   * SLA of its class after it arrives
+   */
+  public Order(String addr, OrderItem[] items, int priority, int due) {
 	address = addr;
 	orderitems = items;
 	isFilled = false;
+	this.priority = priority;
+	this.due = due;
     }
   public OrderItem getUnfilledItem() {
 	for (OrderItem e: orderitems) {
@@ -24,4 +41,10 @@ public class Order {
     }
   public String getAddress() { return address; }
   public OrderItem[] getOrderItems() { return orderitems; }
-  }
\ No newline at end of file
+  public int getPriority() { return priority; }
+  public int getDue() { return due; }
+  /**
+   * @return true if the order was filled after its due tick
+   */
+  public boolean isLate() { return filledat > due; }
+  }
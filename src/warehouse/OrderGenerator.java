@@ -0,0 +1,185 @@
+package warehouse;
+
+import java.util.SplittableRandom;
+
+/**
+ *
+ * OrderGenerator makes a stream of random orders for load tests.
+ * Orders arrive as a Poisson process of some rate per tick, or in
+ * bursts: the rate switches between a low and a high rate, staying
+ * at each for a random (geometric) number of ticks. Arrival times
+ * are drawn as exponential gaps, so the work per tick is one random
+ * number per order, whatever the rate. The number of items in an
+ * order follows a table of weights, and the SKUs follow a Zipf law:
+ * the SKU of popularity rank r (ranks are dealt to the catalog at
+ * random) is picked with weight 1/(r+1)^exponent. Both are sampled
+ * with alias tables (Vose's method), which take two random numbers
+ * per sample however long the table is.
+ *
+ * So that making orders is never the bottleneck of a benchmark, the
+ * random numbers come from a SplittableRandom (no locking or atomic
+ * updates, unlike java.util.Random), seeded from the SimRandom so runs
+ * are still predictable, and an address is made from a single random
+ * number.
+ *
+ */
+public class OrderGenerator {
+  /**
+   * Alias table for sampling 0..n-1 with given weights
+   */
+  static class Alias {
+	final double[] probability;
+	final int[] alias;
+	Alias(double[] weights) {
+	  int n = weights.length;
+	  probability = new double[n];
+	  alias = new int[n];
+	  double total = 0;
+	  for (double w: weights) total += w;
+	  double[] scaled = new double[n];
+	  int[] small = new int[n], large = new int[n];
+	  int smalls = 0, larges = 0;
+	  for (int i=0; i<n; i++) {
+		scaled[i] = weights[i]*n/total;
+		if (scaled[i] < 1) small[smalls++] = i; else large[larges++] = i;
+	    }
+	  while (smalls > 0 && larges > 0) {
+		int s = small[--smalls], l = large[--larges];
+		probability[s] = scaled[s];
+		alias[s] = l;
+		scaled[l] -= 1 - scaled[s];
+		if (scaled[l] < 1) small[smalls++] = l; else large[larges++] = l;
+	    }
+	  while (larges > 0) probability[large[--larges]] = 1;
+	  while (smalls > 0) probability[small[--smalls]] = 1;  // rounding
+	  }
+	int sample(SplittableRandom rand) {
+	  int i = rand.nextInt(probability.length);
+	  return (rand.nextDouble() < probability[i]) ? i : alias[i];
+	  }
+    }
+
+  Catalog catalog;
+  private SplittableRandom randomsource;
+  private Address address;
+  private int[] byrank;     // popularity rank -> Catalog index
+  private Alias skus;       // samples a popularity rank
+  private Alias sizes;      // samples items per order, less one
+  private double lowrate, highrate;  // orders per tick
+  private double switching; // chance per tick of switching rates
+  private boolean high;     // true while in a burst
+  private double next;      // time of the next arrival, from now
+  private double rushshare, bulkshare;  // shares of RUSH and BULK orders
+  long generated;           // orders made
+
+  /**
+   * Constructor, for Poisson arrivals of one order per tick, of
+   * one or two items, with SKUs of Zipf exponent 1
+   */
+  public OrderGenerator(Catalog catalog, SimRandom rand) {
+	this.catalog = catalog;
+	randomsource = new SplittableRandom(((long)rand.nextInt(1<<30) << 30) ^ rand.nextInt(1<<30));
+	address = new Address(rand);
+	byrank = new int[catalog.size()];
+	for (int i=0; i<byrank.length; i++) byrank[i] = i;
+	for (int i=byrank.length-1; i>0; i--) {
+	  int j = randomsource.nextInt(i+1);
+	  int t = byrank[i]; byrank[i] = byrank[j]; byrank[j] = t;
+	  }
+	setZipf(1.0);
+	setSizes(new double[] { 1, 1 });
+	setPoisson(1.0);
+    }
+
+  /**
+   * Orders arrive as a Poisson process
+   * @param rate is the mean number of orders per tick
+   */
+  public void setPoisson(double rate) {
+	setBursty(rate,rate,0);
+    }
+  /**
+   * Orders arrive in bursts, as a Poisson process whose rate
+   * switches between low and high
+   * @param switching is the chance each tick of switching
+   */
+  public void setBursty(double low, double high, double switching) {
+	assert low > 0 && high >= low;
+	lowrate = low;
+	highrate = high;
+	this.switching = switching;
+	this.high = false;
+	next = gap();
+    }
+  /**
+   * @param weights has the weight of orders of 1, 2, 3 ... items
+   */
+  public void setSizes(double[] weights) {
+	sizes = new Alias(weights);
+    }
+  /**
+   * @param exponent is the Zipf exponent of SKU popularity (0
+   * for every SKU alike, bigger for more skew)
+   */
+  public void setZipf(double exponent) {
+	double[] weights = new double[byrank.length];
+	for (int r=0; r<weights.length; r++) weights[r] = Math.pow(r+1,-exponent);
+	skus = new Alias(weights);
+    }
+  /**
+   * @param rush is the share of RUSH orders, and
+   * @param bulk the share of BULK orders (the rest are STANDARD)
+   */
+  public void setMix(double rush, double bulk) {
+	assert rush >= 0 && bulk >= 0 && rush+bulk <= 1;
+	rushshare = rush;
+	bulkshare = bulk;
+    }
+  /**
+   * @return Catalog index of the SKU of popularity rank r
+   */
+  public int ranked(int r) {
+	return byrank[r];
+    }
+
+  /**
+   * @return number of orders arriving this tick
+   */
+  public int arrivals() {
+	if (switching > 0 && randomsource.nextDouble() < switching) {
+	  high = !high;
+	  next = gap();  // gaps are memoryless, so start afresh
+	  }
+	int count = 0;
+	while (next < 1) {
+	  count++;
+	  next += gap();
+	  }
+	next -= 1;
+	return count;
+    }
+  /**
+   * local method for the time to the next arrival
+   */
+  private double gap() {
+	return -Math.log(1-randomsource.nextDouble()) / (high ? highrate : lowrate);
+    }
+  /**
+   * @return a new random order
+   */
+  public Order next() {
+	OrderItem[] items = new OrderItem[1+sizes.sample(randomsource)];
+	for (int i=0; i<items.length; i++) {
+	  int k = byrank[skus.sample(randomsource)];
+	  items[i] = new OrderItem(catalog.sku(k),catalog.description(k));
+	  }
+	int priority = Order.STANDARD;
+	if (rushshare+bulkshare > 0) {
+	  double u = randomsource.nextDouble();
+	  if (u < rushshare) priority = Order.RUSH;
+	  else if (u < rushshare+bulkshare) priority = Order.BULK;
+	  }
+	generated++;
+	return new Order(address.randomAddress(randomsource.nextLong()),items,priority,-1);
+    }
+  }
@@ -0,0 +1,133 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * OrderRouter runs a warehouse with several picker stations (the
+ * Floor's getPickers()). Each station is a MockOrders, with its own
+ * queue and wave, and Robots bring shelves to the station that asked
+ * for them, so the stations pick at the same time. Every new order
+ * goes to the station where it costs least: QUEUETICKS for each order
+ * pending there, plus the carrying distance from the home of the
+ * Shelf of each item to the station. So an order goes to the nearest
+ * station of its shelves, unless that one is busier than the others.
+ *
+ * Distances to stations are lookups, since stations are fixed
+ * destinations of the Floor and have flow fields. Stations ask for
+ * Robots in their ticks, so the station ticked first each tick goes
+ * round, and no station is starved when Robots are few. With stations
+ * picking in parallel, orders are filled about as many times faster
+ * as there are stations, until there are not enough Robots to keep
+ * them all busy.
+ *
+ */
+public class OrderRouter implements Orders, Tickable {
+  static final int QUEUETICKS = MockOrders.ITEMTICKS;  // cost of an order pending
+
+  MockOrders[] stations;
+  private Floor F;
+  private Inventory I;
+  private OrderGenerator generator;  // makes new orders each tick, or null
+  int[] routed;  // orders sent to each station
+  private int first;  // station ticked first in the next tick
+
+  /**
+   * Constructor, with a MockOrders for each picker station of F
+   */
+  public OrderRouter(Floor F, Inventory I, RobotScheduler R, SimRandom rand) {
+	this.F = F;
+	this.I = I;
+	List<Point> pickers = F.getPickers();
+	stations = new MockOrders[pickers.size()];
+	for (int k=0; k<stations.length; k++) {
+	  stations[k] = new MockOrders(I,R,rand,pickers.get(k));
+	  }
+	routed = new int[stations.length];
+    }
+
+  /**
+   * Set the wave size of every station
+   */
+  public void setWaveSize(int n) {
+	for (MockOrders m: stations) m.setWaveSize(n);
+    }
+  /**
+   * Have generator make the new orders of each tick
+   */
+  public void setGenerator(OrderGenerator generator) {
+	this.generator = generator;
+    }
+  /**
+   * Send Order o to the station where it costs least
+   */
+  public void addOrder(Order o) {
+	int k = route(o);
+	routed[k]++;
+	stations[k].addOrder(o);
+    }
+  /**
+   * @return number of the station for Order o
+   */
+  int route(Order o) {
+	List<Point> homes = new ArrayList<Point>(o.getOrderItems().length);
+	for (OrderItem e: o.getOrderItems()) {
+	  Shelf s = I.findItem(e);
+	  if (s != null) homes.add(s.home);
+	  }
+	int best = 0;
+	long bestcost = Long.MAX_VALUE;
+	for (int k=0; k<stations.length; k++) {
+	  Point station = stations[k].getStation();
+	  long cost = (long)QUEUETICKS*stations[k].pending();
+	  for (Point h: homes) {
+		int d = F.getDistance(h,station,true);
+		if (d >= 0) cost += d;
+	    }
+	  if (cost < bestcost) { best = k; bestcost = cost; }
+	  }
+	return best;
+    }
+  /**
+   * @return number of orders queued or being picked, at all stations
+   */
+  public int pending() {
+	int count = 0;
+	for (MockOrders m: stations) count += m.pending();
+	return count;
+    }
+  /**
+   * @return number of orders filled, at all stations
+   */
+  public int filled() {
+	int count = 0;
+	for (MockOrders m: stations) count += m.filled;
+	return count;
+    }
+  public String report() {
+	StringBuilder text = new StringBuilder();
+	for (int k=0; k<stations.length; k++) {
+	  text.append("station ").append(stations[k].getStation()).append(' ');
+	  text.append(stations[k].report()).append('\n');
+	  }
+	return text.toString();
+    }
+
+  /**
+   * Route the new orders of this tick, then tick every station,
+   * starting with the one after the station that started last
+   */
+  public void tick(int count) {
+	if (generator != null) {
+	  for (int n = generator.arrivals(); n > 0; n--) addOrder(generator.next());
+	  }
+	for (int k=0; k<stations.length; k++) stations[(first+k) % stations.length].tick(count);
+	first = (first+1) % stations.length;
+    }
+  /**
+   * @return a random Order
+   */
+  public Order getRandomOrder() {
+	return stations[0].getRandomOrder();
+    }
+  }
@@ -0,0 +1,92 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * PathCache remembers recently computed paths, keyed by start
+ * square, end square and whether the Robot carries a Shelf. The
+ * same trips happen again and again (each Shelf goes between its
+ * home and the Picker), so most getPath() calls can skip the search.
+ *
+ * The cache is bounded by the total size of the paths it holds;
+ * when it is over budget, the least recently used paths go first.
+ * It counts hits, misses and evictions, so its budget can be tuned
+ * for a given warehouse. Whoever owns the cache must clear() it
+ * whenever the layout changes in a way that changes routes.
+ *
+ */
+public class PathCache {
+  private final long budget;   // most bytes of paths to hold
+  private long footprint;      // bytes of paths now held
+  private long hits, misses, evictions;
+  private final LinkedHashMap<Long,CompactPath> paths;
+
+  /**
+   * @param budget is the most bytes that cached paths can use
+   */
+  public PathCache(long budget) {
+	this.budget = budget;
+	paths = new LinkedHashMap<Long,CompactPath>(64,0.75f,true); // LRU order
+    }
+
+  /**
+   * @return key for a path from start to goal
+   */
+  static long key(int start, int goal, boolean carrying) {
+	return ((long)start << 32) | ((2L*goal + (carrying?1:0)) & 0xffffffffL);
+    }
+
+  /**
+   * @return the cached path, or null (which counts as a miss)
+   */
+  public CompactPath get(long key) {
+	CompactPath p = paths.get(key);
+	if (p == null) misses++;
+	else hits++;
+	return p;
+    }
+
+  /**
+   * Add a path to the cache, evicting least recently used
+   * paths as needed to stay within budget
+   */
+  public void put(long key, CompactPath p) {
+	if (p.footprint() > budget) return;  // would not fit at all
+	CompactPath old = paths.put(key,p);
+	if (old != null) footprint -= old.footprint();
+	footprint += p.footprint();
+	Iterator<CompactPath> it = paths.values().iterator();
+	while (footprint > budget) {
+	  CompactPath victim = it.next();
+	  footprint -= victim.footprint();
+	  it.remove();
+	  evictions++;
+	  }
+    }
+
+  /**
+   * Forget all paths (the counters are kept)
+   */
+  public void clear() {
+	paths.clear();
+	footprint = 0;
+    }
+
+  public int size() { return paths.size(); }
+  public long getFootprint() { return footprint; }
+  public long getHits() { return hits; }
+  public long getMisses() { return misses; }
+  public long getEvictions() { return evictions; }
+  /**
+   * @return fraction of lookups that were hits
+   */
+  public double hitRate() {
+	long total = hits + misses;
+	return (total == 0) ? 0.0 : (double)hits/total;
+    }
+  public String toString() {
+	return String.format("PathCache %d paths %d bytes hits %d misses %d evictions %d",
+			size(),footprint,hits,misses,evictions);
+    }
+  }
@@ -0,0 +1,270 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * PathFinder does A* search on the grid of a warehouse floor. The
+ * grid is width x depth squares and a square is named by its index,
+ * x*depth + y, the same numbering that GridFloor uses for its cells;
+ * moves are one square north, south, east or west. Some squares can
+ * be blocked (for example, the shelf area squares when a Robot is
+ * carrying a Shelf).
+ *
+ * The search allocates nothing once it is warmed up: the open set is
+ * a binary heap kept in int arrays, and the g-scores, parents and
+ * closed marks are kept in an open-addressing hash table of int
+ * arrays, so memory only grows with the number of squares that a
+ * search actually visits (not with the size of the floor). These
+ * scratch buffers are reused from one search to the next and there
+ * is one set of them per thread.
+ *
+ */
+public class PathFinder {
+  final int width;
+  final int depth;
+
+  /**
+   * @param width number of squares in x direction
+   * @param depth number of squares in y direction
+   */
+  public PathFinder(int width, int depth) {
+	this.width = width;
+	this.depth = depth;
+    }
+
+  /**
+   * @param start index of first square
+   * @param goal index of last square
+   * @param blocked squares that cannot be entered, or null if every
+   * square can be entered; start and goal are never treated as blocked
+   * @return indices of squares from start to goal (inclusive) on a
+   * shortest path, or null if there is no path
+   */
+  public int[] search(int start, int goal, BitSet blocked) {
+	Scratch S = scratch.get();
+	S.reset();
+	entries(S,start,goal,blocked);
+	if (S.entrycount == 0) return null;  // goal is walled in
+	S.put(start,0,-1);
+	S.push(start,h(S,start,goal),0);
+	while (S.heapsize > 0) {
+	  int g = S.topg();
+	  int node = S.pop();
+	  int slot = S.find(node);
+	  if (S.closed[slot] || S.g[slot] < g) continue; // stale heap entry
+	  S.closed[slot] = true;
+	  if (node == goal) return S.path(goal);
+	  int x = node / depth, y = node % depth;
+	  if (x > 0) relax(S,node-depth,g+1,node,goal,blocked);
+	  if (x < width-1) relax(S,node+depth,g+1,node,goal,blocked);
+	  if (y > 0) relax(S,node-1,g+1,node,goal,blocked);
+	  if (y < depth-1) relax(S,node+1,g+1,node,goal,blocked);
+	  }
+	return null;
+    }
+
+  /**
+   * local method to find the squares from which the goal can be
+   * entered: when the goal is itself blocked (say, the home of a 
+   * Shelf being carried back), it can only be entered from its 
+   * open neighbors, and aiming the heuristic at those neighbors
+   * instead of the goal saves a lot of searching
+   */
+  private void entries(Scratch S, int start, int goal, BitSet blocked) {
+	S.entrycount = 0;
+	if (blocked == null || !blocked.get(goal)) {
+	  S.entry[S.entrycount++] = goal;
+	  return;
+	  }
+	int x = goal / depth, y = goal % depth;
+	if (x > 0) entry(S,goal-depth,start,blocked);
+	if (x < width-1) entry(S,goal+depth,start,blocked);
+	if (y > 0) entry(S,goal-1,start,blocked);
+	if (y < depth-1) entry(S,goal+1,start,blocked);
+	if (start == goal) S.entry[S.entrycount++] = goal;
+    }
+  private void entry(Scratch S, int n, int start, BitSet blocked) {
+	if (n != start && blocked.get(n)) return;
+	S.ex[S.entrycount] = n / depth;
+	S.ey[S.entrycount] = n % depth;
+	S.entry[S.entrycount++] = n;
+    }
+
+  /**
+   * local method to offer square n, reached from square from
+   * with cost g, to the open set
+   */
+  private void relax(Scratch S, int n, int g, int from,
+		  int goal, BitSet blocked) {
+	if (blocked != null && n != goal && blocked.get(n)) return;
+	int slot = S.find(n);
+	if (slot >= 0) {
+	  if (S.closed[slot] || S.g[slot] <= g) return;
+	  S.g[slot] = g;
+	  S.parent[slot] = from;
+	  }
+	else S.put(n,g,from);
+	S.push(n,g+h(S,n,goal),g);
+    }
+
+  /**
+   * Manhattan distance heuristic (to the goal, or through the
+   * nearest square that the goal can be entered from), which 
+   * is exact on a floor with nothing blocked
+   */
+  private int h(Scratch S, int n, int goal) {
+	if (n == goal) return 0;
+	int x = n / depth, y = n % depth;
+	if (S.entry[0] == goal) {
+	  return Math.abs(x - goal/depth) + Math.abs(y - goal%depth);
+	  }
+	int best = Integer.MAX_VALUE;
+	for (int i=0; i<S.entrycount; i++) {
+	  int d = Math.abs(x - S.ex[i]) + Math.abs(y - S.ey[i]);
+	  if (d < best) best = d;
+	  }
+	return best + 1;
+    }
+
+  /**
+   * Scratch buffers for one thread; they grow as needed
+   * and are never shrunk, so searches stop allocating
+   * once the buffers are big enough
+   */
+  private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+	protected Scratch initialValue() { return new Scratch(); }
+    };
+
+  static class Scratch {
+	// hash table of visited squares: key, g-score, parent, closed;
+	// a slot is in use only if stamp[slot] == generation, so the
+	// table is emptied for a new search just by bumping generation
+	int[] key, g, parent, stamp;
+	boolean[] closed;
+	int mask, used, generation;
+	// binary heap of open squares, ordered by f then larger g
+	int[] heapnode, heapf, heapg;
+	int heapsize;
+	int[] trail = new int[64];  // for building the result path
+	// squares the goal can be entered from, and their x,y
+	int[] entry = new int[4], ex = new int[4], ey = new int[4];
+	int entrycount;
+
+	Scratch() {
+	  allocate(1<<12);
+	  heapnode = new int[1<<10];
+	  heapf = new int[1<<10];
+	  heapg = new int[1<<10];
+	  }
+	private void allocate(int capacity) {
+	  key = new int[capacity];
+	  g = new int[capacity];
+	  parent = new int[capacity];
+	  stamp = new int[capacity];
+	  closed = new boolean[capacity];
+	  mask = capacity-1;
+	  used = 0;
+	  generation = 1;
+	  }
+	void reset() {
+	  used = 0;
+	  heapsize = 0;
+	  if (++generation == 0) {  // wrapped around, really clear
+		Arrays.fill(stamp,0);
+		generation = 1;
+	    }
+	  }
+	private static int hash(int n) {
+	  int h = n * 0x9E3779B1;
+	  return h ^ (h >>> 15);
+	  }
+	/**
+	 * @return slot of square n, or -1 if not visited
+	 */
+	int find(int n) {
+	  for (int i = hash(n) & mask; ; i = (i+1) & mask) {
+		if (stamp[i] != generation) return -1;
+		if (key[i] == n) return i;
+	    }
+	  }
+	void put(int n, int gscore, int from) {
+	  if (2*(used+1) > key.length) grow();
+	  int i = hash(n) & mask;
+	  while (stamp[i] == generation) i = (i+1) & mask;
+	  stamp[i] = generation;
+	  key[i] = n; g[i] = gscore; parent[i] = from; closed[i] = false;
+	  used++;
+	  }
+	private void grow() {
+	  int[] okey = key, og = g, oparent = parent, ostamp = stamp;
+	  boolean[] oclosed = closed;
+	  int ogeneration = generation;
+	  allocate(2*okey.length);
+	  for (int j=0; j<okey.length; j++) {
+		if (ostamp[j] != ogeneration) continue;
+		int i = hash(okey[j]) & mask;
+		while (stamp[i] == generation) i = (i+1) & mask;
+		stamp[i] = generation;
+		key[i] = okey[j]; g[i] = og[j]; parent[i] = oparent[j];
+		closed[i] = oclosed[j];
+		used++;
+	    }
+	  }
+	private boolean less(int i, int j) {
+	  if (heapf[i] != heapf[j]) return heapf[i] < heapf[j];
+	  return heapg[i] > heapg[j];  // prefer deeper nodes on ties
+	  }
+	private void swap(int i, int j) {
+	  int t = heapnode[i]; heapnode[i] = heapnode[j]; heapnode[j] = t;
+	  t = heapf[i]; heapf[i] = heapf[j]; heapf[j] = t;
+	  t = heapg[i]; heapg[i] = heapg[j]; heapg[j] = t;
+	  }
+	void push(int n, int f, int gscore) {
+	  if (heapsize == heapnode.length) {
+		heapnode = Arrays.copyOf(heapnode,2*heapsize);
+		heapf = Arrays.copyOf(heapf,2*heapsize);
+		heapg = Arrays.copyOf(heapg,2*heapsize);
+	    }
+	  int i = heapsize++;
+	  heapnode[i] = n; heapf[i] = f; heapg[i] = gscore;
+	  while (i > 0) {
+		int p = (i-1) >>> 1;
+		if (!less(i,p)) break;
+		swap(i,p);
+		i = p;
+	    }
+	  }
+	int topg() { return heapg[0]; }
+	int pop() {
+	  int n = heapnode[0];
+	  heapsize--;
+	  if (heapsize > 0) {
+		swap(0,heapsize);
+		int i = 0;
+		while (true) {
+		  int l = 2*i+1, r = l+1, m = i;
+		  if (l < heapsize && less(l,m)) m = l;
+		  if (r < heapsize && less(r,m)) m = r;
+		  if (m == i) break;
+		  swap(i,m);
+		  i = m;
+		  }
+	    }
+	  return n;
+	  }
+	/**
+	 * @return squares from the start to n, following parents
+	 */
+	int[] path(int n) {
+	  int len = 0;
+	  for (int v = n; v >= 0; v = parent[find(v)]) {
+		if (len == trail.length) trail = Arrays.copyOf(trail,2*len);
+		trail[len++] = v;
+	    }
+	  int[] result = new int[len];
+	  for (int i=0; i<len; i++) result[i] = trail[len-1-i];
+	  return result;
+	  }
+    }
+  }
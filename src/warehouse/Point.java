@@ -18,47 +18,66 @@ public class Point {
     String result = "Point x=" + x + " y=" + y;
     return result;
     }
+  // Neighbor stepping is done on a given Floor, whose bounds say
+  // what is off the floor, and it makes no new Point objects: every
+  // square of the floor has a Cell, and a Cell is the canonical
+  // (interned) Point for that square.
   /**
    * @return the point just "above" this point (= north)
-   * or return null if there is no "above"
+   * on Floor F, or return null if there is no "above"
    * @author Ted Herman 
    */
-  Point above() {
-    int newx = x-1;
-    if (newx < 0) return null;
-    return new Point(newx,y);
+  Point above(Floor F) {
+    return F.getCell(x-1,y);
     }
   /** 
    * @return the point just "below" this point (= South)
-   * or return null if there is no "below"
+   * on Floor F, or return null if there is no "below"
    */
-  Point below() {
-    int newx = x + 1;
-    if (newx >= MockFloor.warehousedepth) return null;
-    return new Point(newx,y);
+  Point below(Floor F) {
+    return F.getCell(x+1,y);
     }
   /** 
    * @return the point just "right" of this point (= East)
-   * or return null if there is no "right"
+   * on Floor F, or return null if there is no "right"
    */
-  Point right() {
-    int newy = y + 1;
-    if (newy >= MockFloor.warehousewidth) return null;
-    return new Point(x,newy);
+  Point right(Floor F) {
+    return F.getCell(x,y+1);
     }
   /** 
    * @return the point just "left" of this point (= West)
-   * or return null if there is no "left"
+   * on Floor F, or return null if there is no "left"
    */
-  Point left() {
-    int newy = y - 1;
-    if (newy < 0) return null;
-    return new Point(x,newy);
+  Point left(Floor F) {
+    return F.getCell(x,y-1);
+    }
+  /**
+   * @return x and y packed into one long, usable as a
+   * map key without making any object
+   */
+  long key() {
+    return key(x,y);
+    }
+  static long key(int x, int y) {
+    return ((long)x << 32) | (y & 0xffffffffL);
     }
   /**
    * @return true if two points are the same place
    */
-  boolean equals(Point other) {
-    return (other.x==x && other.y==y);
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) return true;
+    if (!(other instanceof Point)) return false;
+    Point p = (Point)other;
+    return (p.x==x && p.y==y);
+    }
+  /**
+   * @return hash consistent with equals(), so that Point 
+   * (and Cell) can be a key in HashMap or HashSet
+   */
+  @Override
+  public int hashCode() {
+    int h = x*65537 + y;
+    return h ^ (h >>> 16);
     }
   }
@@ -0,0 +1,166 @@
+package warehouse;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ *
+ * ReplayOrders feeds recorded orders to the Picker (a MockOrders), each
+ * at the tick it was recorded at, instead of making random ones. The
+ * recording is a text file with one order per line, like this:
+ *
+ *   # tick,SKU numbers,priority,address
+ *   120,547840 150644,RUSH,Emma Smith|12 Park Road|Salem IA123456
+ *   121,150644
+ *
+ * where the SKU numbers are split by spaces, the priority (RUSH,
+ * STANDARD or BULK) and address may be left out, and | stands for a
+ * line break in the address. Ticks must not be negative or go down,
+ * and every SKU number has to be in the catalog (an item that is not
+ * could never be filled, and would hold up the Picker for good).
+ *
+ * The file is read a line at a time, and no more than READAHEAD orders
+ * are read ahead of the tick, so memory stays the same however long
+ * the recording is. There is backpressure too: an order is not handed
+ * to the Picker while it has limit orders pending, and while orders
+ * wait for the Picker, the read-ahead fills up and reading stops. An
+ * order handed over after its tick is counted as delayed, but it is
+ * due by its recorded tick all the same.
+ *
+ */
+public class ReplayOrders implements Orders, Tickable {
+  static final int READAHEAD = 1024;  // most orders read ahead
+  static final int LIMIT = 64;        // most orders pending at the Picker
+
+  MockOrders picker;
+  Catalog catalog;
+  private BufferedReader in;   // null at the end of the file
+  private ArrayDeque<Order> ahead;  // orders read, not yet handed over
+  private int readahead;
+  private int limit;
+  private int line;            // lines read
+  private int lasttick;        // tick of the last order read
+  int released;                // orders handed to the Picker
+  int delayed;                 // of those, the ones after their tick
+
+  /**
+   * @param filename is the recording
+   * @param picker is the MockOrders that picks the orders
+   * @param catalog describes the SKU numbers in the recording
+   */
+  public ReplayOrders(String filename, MockOrders picker, Catalog catalog) throws IOException {
+	this(filename,picker,catalog,READAHEAD,LIMIT);
+    }
+  public ReplayOrders(String filename, MockOrders picker, Catalog catalog,
+		  int readahead, int limit) throws IOException {
+	this.picker = picker;
+	this.catalog = catalog;
+	this.readahead = readahead;
+	this.limit = limit;
+	in = Files.newBufferedReader(Paths.get(filename),StandardCharsets.UTF_8);
+	ahead = new ArrayDeque<Order>(readahead);
+    }
+
+  /**
+   * Read ahead, hand over the orders whose tick has come (as
+   * long as the Picker is not saturated), and tick the Picker
+   */
+  public void tick(int count) {
+	fill();
+	while (!ahead.isEmpty() && ahead.peekFirst().arrival <= count && picker.pending() < limit) {
+	  Order o = ahead.pollFirst();
+	  if (o.arrival < count) delayed++;
+	  released++;
+	  picker.addOrder(o);
+	  }
+	picker.tick(count);
+    }
+  /**
+   * local method to read orders until the read-ahead is full
+   */
+  private void fill() {
+	while (ahead.size() < readahead && in != null) {
+	  Order o = read();
+	  if (o != null) ahead.addLast(o);
+	  }
+    }
+  /**
+   * @return the next order of the recording, without waiting
+   * for its tick, or null if there are no more
+   */
+  public Order getRandomOrder() {
+	if (ahead.isEmpty()) fill();
+	return ahead.pollFirst();
+    }
+  /**
+   * @return true once every order has been handed over
+   */
+  public boolean finished() {
+	return in == null && ahead.isEmpty();
+    }
+  /**
+   * @return number of orders read and not handed over
+   */
+  public int buffered() {
+	return ahead.size();
+    }
+
+  /**
+   * local method to read the next order, closing the file at its
+   * end; its arrival is the tick it is recorded at, even if it is
+   * handed over later, and it is due as if it arrived then
+   * @return the order, or null for a blank or comment line, or
+   * at the end of the file
+   */
+  private Order read() {
+	String text;
+	try {
+	  text = in.readLine();
+	  if (text == null) {
+		in.close();
+		in = null;
+		return null;
+	    }
+	  }
+	catch (IOException e) {
+	  throw new UncheckedIOException(e);
+	  }
+	line++;
+	text = text.trim();
+	if (text.isEmpty() || text.charAt(0) == '#') return null;
+	String[] fields = text.split(",",4);
+	if (fields.length < 2) throw new IllegalArgumentException("line "+line+": no SKU numbers");
+	Order o;
+	try {
+	  int tick = Integer.parseInt(fields[0].trim());
+	  if (tick < 0) throw new IllegalArgumentException("line "+line+": negative tick");
+	  if (tick < lasttick) throw new IllegalArgumentException("line "+line+": tick goes down");
+	  lasttick = tick;
+	  String[] skus = fields[1].trim().split("\\s+");
+	  OrderItem[] items = new OrderItem[skus.length];
+	  for (int i=0; i<skus.length; i++) {
+		int sku = Integer.parseInt(skus[i]);
+		int k = catalog.index(sku);
+		if (k < 0) throw new IllegalArgumentException("line "+line+": unknown SKU "+sku);
+		items[i] = new OrderItem(sku,catalog.description(k));
+	    }
+	  int priority = Order.STANDARD;
+	  if (fields.length > 2) priority = priority(fields[2].trim());
+	  String address = (fields.length > 3) ? fields[3].replace('|','\n') : "";
+	  o = new Order(address,items,priority,tick+Order.SLA[priority]);
+	  o.arrival = tick;  // kept when it is handed over
+	  }
+	catch (NumberFormatException e) {
+	  throw new IllegalArgumentException("line "+line+": bad number");
+	  }
+	return o;
+    }
+  private int priority(String name) {
+	if (name.isEmpty() || name.equals("STANDARD")) return Order.STANDARD;
+	if (name.equals("RUSH")) return Order.RUSH;
+	if (name.equals("BULK")) return Order.BULK;
+	throw new IllegalArgumentException("line "+line+": unknown priority "+name);
+    }
+  }
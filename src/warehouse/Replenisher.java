@@ -0,0 +1,268 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * Replenisher keeps MockInventory stocked. Each SKU number has a
+ * reorder point: when its units in stock plus its units on order fall
+ * to the reorder point, enough units are ordered to bring it back up
+ * to its order-up-to level. Orders ride on trucks, which leave the
+ * supplier every TRUCKGAP ticks (sooner if full) and reach the
+ * receiving dock LEADTIME ticks later. The units on a truck are
+ * sorted by the shelf they go to (a shelf that already holds the SKU,
+ * or else one shelf picked for up to PERSHELF SKUs that have none),
+ * and each of those shelves is requested just once through
+ * RobotScheduler.requestShelf(Shelf,Dock); when a Robot brings it to
+ * the dock, all of its units go on at once and the Robot takes the
+ * Shelf back home.
+ *
+ * Replenisher also moves units between shelves for the Slotter: the
+ * Shelf they are on is brought to the dock, they are taken off, and
+ * they are put away on their new Shelf like units from a truck.
+ *
+ * A drop in stock only queues the SKU number, and tick() looks at no
+ * more than PERTICK queued SKU numbers and unloads no more than one
+ * truck, so the work of a tick stays bounded however many SKUs are
+ * low at once.
+ *
+ */
+public class Replenisher {
+  static final int REORDERPOINT = 1;  // default reorder point
+  static final int ORDERUPTO = 4;     // default order-up-to level
+  static final int LEADTIME = 200;    // ticks from ordering to the dock
+  static final int TRUCKGAP = 100;    // ticks between trucks leaving
+  static final int TRUCKSIZE = 200;   // most units on one truck
+  static final int PERTICK = 64;      // most queued SKUs looked at per tick
+  static final int PERSHELF = 8;      // most new SKUs put on one shelf per truck
+
+  /**
+   * A truck bringing units to the receiving dock
+   */
+  static class Truck {
+	int arrival;  // tick it reaches the dock
+	int[] skus = new int[TRUCKSIZE];  // SKU number of each unit
+	int count;    // units loaded
+    }
+  /**
+   * Units of one SKU to take off a Shelf and put on another
+   */
+  static class Move {
+	int sku;
+	Shelf to;
+	Move(int sku, Shelf to) { this.sku = sku; this.to = to; }
+    }
+
+  MockInventory inventory;
+  Floor floor;
+  SimRandom randomsource;
+  RobotScheduler scheduler;  // null until the Inventory is told of one
+  private IntIntMap reorderpoints;  // SKU number -> reorder point, if not default
+  private IntIntMap orderupto;      // SKU number -> order-up-to, if not default
+  private IntIntMap onorder;        // SKU number -> units ordered, not yet shelved
+  private IntIntMap queued;         // SKU numbers now in lowstock
+  private ArrayDeque<Integer> lowstock;  // SKU numbers whose stock dropped
+  private Truck loading;            // truck taking units now, or null
+  private int loadingsince;         // tick loading took its first unit
+  private ArrayDeque<Truck> ontheway;   // trucks, soonest arrival first
+  private Map<Shelf,List<Integer>> putaway;  // requested shelf -> units for it
+  private Map<Shelf,List<Move>> takeoff;     // requested shelf -> units to move off
+  private int clock;
+  int trucks;    // trucks that have reached the dock
+  int visits;    // shelves brought to the dock
+  int received;  // units put on shelves
+  int moved;     // units moved between shelves
+
+  public Replenisher(MockInventory inventory, Floor floor, SimRandom rand) {
+	this.inventory = inventory;
+	this.floor = floor;
+	randomsource = rand;
+	reorderpoints = new IntIntMap();
+	orderupto = new IntIntMap();
+	onorder = new IntIntMap();
+	queued = new IntIntMap();
+	lowstock = new ArrayDeque<Integer>();
+	ontheway = new ArrayDeque<Truck>();
+	putaway = new LinkedHashMap<Shelf,List<Integer>>();
+	takeoff = new LinkedHashMap<Shelf,List<Move>>();
+    }
+
+  /**
+   * Set the reorder point and order-up-to level of one SKU number
+   */
+  public void setLevels(int sku, int reorderpoint, int upto) {
+	assert upto > reorderpoint;
+	reorderpoints.put(sku,reorderpoint);
+	orderupto.put(sku,upto);
+	lowered(sku);  // it might be low already
+    }
+  public int reorderPoint(int sku) {
+	return reorderpoints.get(sku,REORDERPOINT);
+    }
+  public int orderUpTo(int sku) {
+	return orderupto.get(sku,ORDERUPTO);
+    }
+  /**
+   * @return units of SKU number sku on order, not yet on a shelf
+   */
+  public int onOrder(int sku) {
+	return onorder.get(sku);
+    }
+  /**
+   * @return number of shelves waiting to have units moved off
+   */
+  public int moving() {
+	return takeoff.size();
+    }
+
+  /**
+   * Inventory calls this when stock of SKU number sku drops;
+   * it only queues sku, for tick() to look at
+   */
+  void lowered(int sku) {
+	if (queued.containsKey(sku)) return;
+	queued.put(sku,1);
+	lowstock.addLast(sku);
+    }
+
+  public void tick(int count) {
+	clock = count;
+	if (scheduler == null) return;  // no Robots to bring shelves
+	for (int k=0; k<PERTICK && !lowstock.isEmpty(); k++) {
+	  int sku = lowstock.pollFirst();
+	  queued.remove(sku);
+	  int position = inventory.stockCount(sku) + onorder.get(sku);
+	  if (position <= reorderPoint(sku)) order(sku,orderUpTo(sku)-position);
+	  }
+	if (loading != null && clock-loadingsince >= TRUCKGAP) send();
+	Truck t = ontheway.peekFirst();
+	if (t != null && t.arrival <= clock) unload(ontheway.pollFirst());
+    }
+
+  /**
+   * local method to put n units of SKU number sku on trucks
+   */
+  private void order(int sku, int n) {
+	onorder.add(sku,n);
+	for (int i=0; i<n; i++) {
+	  if (loading == null) {
+		loading = new Truck();
+		loadingsince = clock;
+	    }
+	  loading.skus[loading.count++] = sku;
+	  if (loading.count == TRUCKSIZE) send();
+	  }
+    }
+  /**
+   * local method to send the truck being loaded on its way
+   */
+  private void send() {
+	loading.arrival = clock + LEADTIME;
+	ontheway.addLast(loading);
+	loading = null;
+    }
+  /**
+   * local method for a truck at the dock: sort its units by
+   * the shelf each goes to, and request each shelf once
+   */
+  private void unload(Truck t) {
+	trucks++;
+	Map<Integer,Shelf> chosen = new HashMap<Integer,Shelf>();
+	Shelf spare = null;  // shelf for SKUs that are on no shelf
+	int spareskus = 0;
+	for (int i=0; i<t.count; i++) {
+	  // units of one SKU on this truck all go to one shelf
+	  Shelf s = chosen.get(t.skus[i]);
+	  if (s == null) {
+		s = holding(t.skus[i]);
+		if (s == null) {
+		  if (spare == null || spareskus == PERSHELF) {
+			spare = randomShelf();
+			spareskus = 0;
+		    }
+		  s = spare;
+		  spareskus++;
+		  }
+		chosen.put(t.skus[i],s);
+	    }
+	  deliver(t.skus[i],s);
+	  }
+    }
+  /**
+   * local method to have a unit of SKU number sku put on Shelf s,
+   * asking for s to come to the dock unless it is already asked for
+   */
+  private void deliver(int sku, Shelf s) {
+	List<Integer> units = putaway.get(s);
+	if (units == null) {
+	  units = new ArrayList<Integer>();
+	  if (!takeoff.containsKey(s)) scheduler.requestShelf(s,inventory);
+	  putaway.put(s,units);
+	  }
+	units.add(sku);
+    }
+  /**
+   * Move all units of SKU number sku from Shelf from to Shelf to
+   * (the units still on order while they are moving)
+   */
+  public void relocate(int sku, Shelf from, Shelf to) {
+	List<Move> list = takeoff.get(from);
+	if (list == null) {
+	  list = new ArrayList<Move>();
+	  if (!putaway.containsKey(from)) scheduler.requestShelf(from,inventory);
+	  takeoff.put(from,list);
+	  }
+	list.add(new Move(sku,to));
+    }
+  /**
+   * @return the Slotter's target Shelf for SKU number sku, else
+   * a Shelf that holds it, or null
+   */
+  private Shelf holding(int sku) {
+	Shelf t = inventory.slotter.target(sku);
+	if (t != null) return t;
+	for (Shelf s: inventory.shelvesHolding(sku).keySet()) return s;
+	return null;
+    }
+  /**
+   * @return a random Shelf that is at home on the Floor
+   */
+  private Shelf randomShelf() {
+	Object c;
+	do {
+	  c = floor.getCell(floor.randomInShelfArea()).getContents();
+	  } while (!(c instanceof Shelf));  // skip shelves away from home
+	return (Shelf)c;
+    }
+
+  /**
+   * A Robot has brought Shelf s to the dock: put on it all
+   * the units waiting for it, take off the units moving to
+   * other shelves, then send it back
+   */
+  public void notify(Robot r, Shelf s) {
+	List<Integer> units = putaway.remove(s);
+	List<Move> moves = takeoff.remove(s);
+	if (units != null || moves != null) visits++;
+	if (units != null) {
+	  for (int sku: units) {
+		inventory.addItem(new Item(sku,inventory.catalog.describe(sku)),s);
+		if (onorder.add(sku,-1) == 0) onorder.remove(sku);
+		received++;
+	    }
+	  }
+	if (moves != null) {
+	  for (Move m: moves) {
+		Item probe = new Item(m.sku,null);
+		Item e;
+		while ((e = inventory.reserve(probe,s)) != null) {
+		  inventory.take(e);
+		  onorder.add(m.sku,1);
+		  deliver(m.sku,m.to);
+		  moved++;
+		  }
+	    }
+	  }
+	scheduler.returnShelf(r);
+    }
+  }
@@ -0,0 +1,177 @@
+package warehouse;
+
+/**
+ *
+ * ReservationTable records which Robot will be in which square at
+ * which tick, so that Robots can plan paths that never put two of
+ * them in one square. Reservations for the next ticks are kept in a
+ * ring buffer indexed by tick, with one IntIntMap (square to Robot
+ * number) per tick; a slot is reused once its tick is in the past,
+ * and the ring doubles if a plan reaches further ahead than it holds.
+ *
+ * A Robot at the end of its path stays there, so it is "parked":
+ * it holds its square from some tick on, until it plans again.
+ *
+ */
+public class ReservationTable {
+  private IntIntMap[] slots;  // slots[t & mask]: square -> Robot, at tick t
+  private int[] slottick;     // tick that each slot is holding
+  private int mask;
+  private IntIntMap parkedrobot;  // square -> Robot parked there
+  private IntIntMap parkedfrom;   // square -> tick that parking starts
+  private IntIntMap lastuse;      // square -> last tick it is reserved
+  private int now;                // ticks before now are forgotten
+
+  public ReservationTable() {
+	allocate(256);
+	parkedrobot = new IntIntMap();
+	parkedfrom = new IntIntMap();
+	lastuse = new IntIntMap();
+	now = 0;
+    }
+  private void allocate(int size) {
+	slots = new IntIntMap[size];
+	slottick = new int[size];
+	for (int i=0; i<size; i++) {
+	  slots[i] = new IntIntMap();
+	  slottick[i] = -1;
+	  }
+	mask = size-1;
+    }
+
+  /**
+   * @param t is the current tick; reservations before t
+   * are no longer needed
+   */
+  public void advance(int t) {
+	now = t;
+    }
+  public int getNow() { return now; }
+
+  /**
+   * @return map of reservations for tick t (null if none)
+   */
+  private IntIntMap slot(int t) {
+	IntIntMap m = slots[t & mask];
+	return (slottick[t & mask] == t) ? m : null;
+    }
+
+  /**
+   * @return number of the Robot that has square n at tick t,
+   * or -1 if nobody has it
+   */
+  public int owner(int n, int t) {
+	IntIntMap m = slot(t);
+	if (m != null) {
+	  int r = m.get(n,-1);
+	  if (r >= 0) return r;
+	  }
+	int p = parkedrobot.get(n,-1);
+	if (p >= 0 && t >= parkedfrom.get(n)) return p;
+	return -1;
+    }
+  /**
+   * @return true if Robot r may be in square n at tick t
+   */
+  public boolean free(int n, int t, int r) {
+	int o = owner(n,t);
+	return o < 0 || o == r;
+    }
+  /**
+   * @return true if Robot r may move from square u (at tick t)
+   * to square v (at tick t+1): v has to be free, and no other
+   * Robot can be moving from v to u at the same time
+   */
+  public boolean canMove(int u, int v, int t, int r) {
+	if (!free(v,t+1,r)) return false;
+	if (u == v) return true;
+	int o = owner(v,t);
+	return o < 0 || o == r || owner(u,t+1) != o;
+    }
+  /**
+   * @return true if Robot r can arrive at square n at tick t and
+   * then stay there: no other Robot has n at t or any later tick
+   */
+  public boolean canPark(int n, int t, int r) {
+	int p = parkedrobot.get(n,-1);
+	if (p >= 0 && p != r) return false;
+	int last = lastuse.get(n,-1);
+	for (int i = Math.max(t,now); i <= last; i++) {
+	  if (!free(n,i,r)) return false;
+	  }
+	return true;
+    }
+  /**
+   * @return the first tick, no earlier than t, from which Robot r
+   * can park at square n, or -1 if another Robot is parked there
+   */
+  public int parkableFrom(int n, int t, int r) {
+	int p = parkedrobot.get(n,-1);
+	if (p >= 0 && p != r) return -1;
+	int last = lastuse.get(n,-1);
+	int first = Math.max(t,now);
+	for (int i = last; i >= first; i--) {
+	  if (!free(n,i,r)) return i+1;
+	  }
+	return first;
+    }
+
+  /**
+   * Robot r will be in square n at tick t
+   */
+  public void reserve(int n, int t, int r) {
+	assert t >= now;
+	while (t - now > mask) grow();
+	int i = t & mask;
+	if (slottick[i] != t) {  // slot held a past tick
+	  slots[i].clear();
+	  slottick[i] = t;
+	  }
+	slots[i].put(n,r);
+	if (lastuse.get(n,-1) < t) lastuse.put(n,t);
+    }
+  /**
+   * Robot r reserves every square of path, where path[k] is
+   * its square at tick t0+k, and parks at the last square
+   */
+  public void reserve(int[] path, int t0, int r) {
+	for (int k=0; k<path.length; k++) reserve(path[k],t0+k,r);
+	park(path[path.length-1],t0+path.length-1,r);
+    }
+  /**
+   * Robot r stays in square n from tick t on
+   */
+  public void park(int n, int t, int r) {
+	parkedrobot.put(n,r);
+	parkedfrom.put(n,t);
+    }
+  /**
+   * Robot r is no longer parked in square n
+   */
+  public void unpark(int n, int r) {
+	if (parkedrobot.get(n,-1) != r) return;
+	parkedrobot.remove(n);
+	parkedfrom.remove(n);
+    }
+  /**
+   * @return number of the Robot parked at square n, or -1
+   */
+  public int parked(int n) {
+	return parkedrobot.get(n,-1);
+    }
+
+  /**
+   * double the ring, keeping reservations that are not past
+   */
+  private void grow() {
+	IntIntMap[] oslots = slots;
+	int[] oslottick = slottick;
+	allocate(2*oslots.length);
+	for (int i=0; i<oslots.length; i++) {
+	  if (oslottick[i] < now) continue;
+	  int j = oslottick[i] & mask;
+	  slots[j] = oslots[i];
+	  slottick[j] = oslottick[i];
+	  }
+    }
+  }
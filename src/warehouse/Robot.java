@@ -23,18 +23,36 @@ public class Robot {
   public static final int afterdockshelfbound = 8;
   public static final int chargerbound = 9;
   
+  int id;         // number of this Robot, 0 for the first
   Point location;
-  List<Point> path;  // path of Points to travel
+  Point home;     // where this Robot goes to charge and be idle
+  Point goal;     // where this Robot is going now, or null
+  boolean waiting;  // true if going to (or at) a square near goal
+  int retry;        // tick to try planning again after a failure
+  int failures;     // failed plans in a row
+  List<Point> path;  // path of Points to travel (not modified)
+  int step;          // index in path of the next Point to travel
   Shelf shelf; // null if not carrying a shelf
   int state;   // one of the values above, like "idle"
   Picker picker;  // only used for going to picker
+  Point station;  // picker station it is going to
   Dock dock;      // only used for going to dock
   public Robot(Point startlocation) {
 	location = startlocation;
+	home = startlocation;
+	goal = null;
 	path = null;
+	step = 0;
 	shelf = null;
 	state = idle;
 	picker = null;
 	dock = null;
     }
+  /**
+   * start traveling on a new path (or null to stop)
+   */
+  void setPath(List<Point> p) {
+	path = p;
+	step = 0;
+    }
   }
@@ -15,6 +15,12 @@ public interface RobotScheduler {
    * has been delivered to the picker location
    */
   void requestShelf(Shelf s, Picker p);
+  /**
+   * @param s is a Shelf to bring to picker station
+   * @param station (one of the Floor's getPickers()), and
+   * @param p is the Picker to invoke when it is there
+   */
+  void requestShelf(Shelf s, Picker p, Point station);
   /**
    * @param s is a Shelf to bring to the receiving dock
    * @param d is a Dock interface to invoke when the shelf 
@@ -26,4 +32,8 @@ public interface RobotScheduler {
    * put that Shelf back into a ShelfArea on the Floor
    */
   void returnShelf(Robot r);
+  /**
+   * @return number of Robots that have nothing to do
+   */
+  int idleRobots();
   }
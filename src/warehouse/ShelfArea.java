@@ -1,7 +1,5 @@
 package warehouse;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -11,20 +9,22 @@ import java.util.Random;
 public class ShelfArea {
   int width; // height will always be 2 -- just two shelves
   Point corner;  // lower left corner of shelf area
-  List<Cell> areacontents;
+  // cells by offset from corner: the Cell at (x,y) is
+  // areacontents[(y-corner.y+1)*width + (x-corner.x)]
+  Cell[] areacontents;
   SimRandom randomsource; // for deterministic randomness
   /**
    * @param corner - lower left corner of shelf area
    * @param width - how many squares wide shelf area is
    */
   ShelfArea(Point corner, int width, SimRandom rand) {
-	areacontents = new ArrayList<Cell>();
+	areacontents = new Cell[2*width];
 	randomsource = rand; 
 	this.corner = new Point(corner.x,corner.y);
 	this.width = width;
 	for (int i=corner.y-1; i<corner.y+1; i++)
 	 for (int j=corner.x; j<corner.x+width; j++) {
-	   areacontents.add(new Cell(j,i));
+	   areacontents[offset(j,i)] = new Cell(j,i);
        }
 	populate();  // fill with shelves
     }
@@ -41,15 +41,23 @@ public class ShelfArea {
    * @return height of this ShelfArea
    */
   int getHeight() { return 2; }
+  /**
+   * @return position of (x,y) in areacontents
+   */
+  private int offset(int x, int y) {
+	return (y-corner.y+1)*width + (x-corner.x);
+    }
   /**
    * @return a cell in this ShelfArea
-   * at a specified Point (x,y)
+   * at a specified Point (x,y), or null
+   * if the Point is not in this ShelfArea
    */
   Cell getCell(Point P) {
-	for (Cell e: areacontents) {
-	  if (e.equals(P)) return e;
-	  }
-	return null;
+	return getCell(P.x,P.y);
+    }
+  Cell getCell(int x, int y) {
+	if (!hasWithin(x,y)) return null;
+	return areacontents[offset(x,y)];
     }
   /**
    * fill this shelfarea with Shelf objects in each Cell;
@@ -65,10 +73,13 @@ public class ShelfArea {
    * @param P point to test
    */
   boolean hasWithin(Point P) {
-	if (P.x < corner.x) return false;
-	if (P.x >= corner.x + width) return false;
-	if (P.y > corner.y) return false;
-	if (P.y < corner.y-1) return false;
+	return hasWithin(P.x,P.y);
+    }
+  boolean hasWithin(int x, int y) {
+	if (x < corner.x) return false;
+	if (x >= corner.x + width) return false;
+	if (y > corner.y) return false;
+	if (y < corner.y-1) return false;
 	return true;
     }
   /**
@@ -0,0 +1,128 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * ShelfStock is what Inventory knows about the contents of one
+ * Shelf: the units on it, a count of units by SKU number (a primitive
+ * IntIntMap, so counting does not box), and for each SKU number the
+ * units that no order has reserved yet. Where each unit is in the
+ * list of units is kept in an identity map, so taking one off the
+ * Shelf moves the last unit into its place instead of shifting the
+ * rest: every operation here is constant time. Units are listed in
+ * the order they were put on the Shelf, until some are taken off.
+ *
+ */
+public class ShelfStock {
+  final Shelf shelf;
+  private List<Item> units;   // units on the shelf
+  private IdentityHashMap<Item,Integer> slots;  // unit -> its position in units
+  private Set<Item> reserved;  // units claimed by orders, by identity
+  private IntIntMap counts;   // SKU number -> units on the shelf
+  private Map<Integer,ArrayDeque<Item>> unreserved;  // SKU number -> free units
+
+  public ShelfStock(Shelf shelf) {
+	this.shelf = shelf;
+	units = new ArrayList<Item>();
+	slots = new IdentityHashMap<Item,Integer>();
+	reserved = Collections.newSetFromMap(new IdentityHashMap<Item,Boolean>());
+	counts = new IntIntMap();
+	unreserved = new HashMap<Integer,ArrayDeque<Item>>();
+    }
+
+  /**
+   * put unit e on this Shelf
+   */
+  public void add(Item e) {
+	slots.put(e,units.size());
+	units.add(e);
+	counts.add(e.id,1);
+	ArrayDeque<Item> q = unreserved.get(e.id);
+	if (q == null) {
+	  q = new ArrayDeque<Item>();
+	  unreserved.put(e.id,q);
+	  }
+	q.addLast(e);
+    }
+  /**
+   * claim one unit of SKU sku on this Shelf, oldest first
+   * @return the unit, or null if every unit is already claimed
+   */
+  public Item reserve(int sku) {
+	ArrayDeque<Item> q = unreserved.get(sku);
+	if (q == null) return null;
+	Item e = q.pollFirst();
+	if (q.isEmpty()) unreserved.remove(sku);
+	reserved.add(e);
+	return e;
+    }
+  /**
+   * give back reserved unit e, so it can be claimed again
+   */
+  public void release(Item e) {
+	boolean claimed = reserved.remove(e);
+	assert claimed;
+	ArrayDeque<Item> q = unreserved.get(e.id);
+	if (q == null) {
+	  q = new ArrayDeque<Item>();
+	  unreserved.put(e.id,q);
+	  }
+	q.addFirst(e);
+    }
+  /**
+   * take reserved unit e off this Shelf
+   */
+  public void remove(Item e) {
+	boolean claimed = reserved.remove(e);
+	assert claimed;
+	int slot = slots.remove(e);
+	Item last = units.remove(units.size()-1);
+	if (last != e) {
+	  units.set(slot,last);
+	  slots.put(last,slot);
+	  }
+	if (counts.add(e.id,-1) == 0) counts.remove(e.id);
+    }
+  /**
+   * take one unit of SKU sku off this Shelf
+   * @return the unit taken, or null if there is none
+   */
+  public Item remove(int sku) {
+	Item e = reserve(sku);
+	if (e != null) remove(e);
+	return e;
+    }
+  /**
+   * @return true if unit e is on this Shelf and reserved
+   */
+  public boolean isReserved(Item e) {
+	return reserved.contains(e);
+    }
+  /**
+   * @return number of units of SKU sku on this Shelf
+   */
+  public int count(int sku) {
+	return counts.get(sku);
+    }
+  /**
+   * @return number of units of SKU sku on this Shelf
+   * that are not reserved
+   */
+  public int available(int sku) {
+	ArrayDeque<Item> q = unreserved.get(sku);
+	return (q == null) ? 0 : q.size();
+    }
+  /**
+   * @return number of units on this Shelf
+   */
+  public int size() {
+	return units.size();
+    }
+  /**
+   * @return the units on this Shelf
+   */
+  public Item[] toArray() {
+	return units.toArray(new Item[units.size()]);
+    }
+  }
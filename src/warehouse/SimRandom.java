@@ -29,4 +29,10 @@ public class SimRandom {
   public int nextInt(int bound) {
 	return R.nextInt(bound);
     }
+  /**
+   * @return a random number in [0,1)
+   */
+  public double nextDouble() {
+	return R.nextDouble();
+    }
   }
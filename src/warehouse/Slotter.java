@@ -0,0 +1,204 @@
+package warehouse;
+
+import java.util.*;
+
+/**
+ *
+ * Slotter puts fast-moving SKUs on the shelves nearest the Picker.
+ * It counts the units picked of each SKU number and, every RECLASSIFY
+ * ticks, sorts SKUs into ABC classes: the A SKUs make up the first
+ * ASHARE of all picks, the B SKUs the next part up to BSHARE, and the
+ * rest are C. Each A SKU gets a target Shelf: the A SKUs in order of
+ * picks are dealt, SKUSPERSHELF at a time, to the shelves in order of
+ * travel cost (steps from the Shelf's home to the Picker). New stock
+ * of an A SKU goes to its target (see Replenisher), and while Robots
+ * are idle the Slotter has Replenisher move A SKUs that sit far from
+ * their target, one Shelf at a time, through the receiving dock.
+ *
+ * For every unit picked, Slotter also adds up the travel cost of the
+ * Shelf it came from, so it can report both the reduction in average
+ * trip length it expects from its targets and the reduction actually
+ * achieved since it first classified.
+ *
+ */
+public class Slotter {
+  static final int A = 0, B = 1, C = 2;  // ABC classes
+  static final double ASHARE = 0.8;      // share of picks that are A
+  static final double BSHARE = 0.95;     // share of picks that are A or B
+  static final int RECLASSIFY = 500;     // ticks between classifications
+  static final int SKUSPERSHELF = 4;     // A SKUs given to each near shelf
+  static final int MINGAIN = 10;         // steps a move must save
+  static final int MAXMOVES = 2;         // shelves being moved from at once
+
+  MockInventory inventory;
+  Floor floor;
+  private List<Shelf> bycost;     // every Shelf, nearest to the Picker first
+  private IntIntMap costs;        // floor index of home -> steps to the Picker
+  private IntIntMap picks;        // SKU number -> units picked
+  private int totalpicks;
+  private IntIntMap classes;      // SKU number -> A or B (absent for C)
+  private IntIntMap targets;      // A SKU number -> position in bycost
+  private ArrayDeque<Integer> moves;  // A SKU numbers to look at moving
+  private long tripsteps;         // costs of picks since classification
+  private int trips;              // picks since classification
+  private double baseline = -1;   // average cost before the first classification
+  private double expected;        // reduction expected from the targets
+
+  /**
+   * Constructor, which has to run while every Shelf is at home
+   */
+  public Slotter(MockInventory inventory, Floor floor) {
+	this.inventory = inventory;
+	this.floor = floor;
+	bycost = new ArrayList<Shelf>();
+	costs = new IntIntMap();
+	final Point picker = floor.getPicker();
+	for (int i=0; i<floor.getNumShelfAreas(); i++) {
+	  ShelfArea a = floor.getShelfArea(i);
+	  for (Cell c: a.areacontents) {
+		if (!(c.getContents() instanceof Shelf)) continue;
+		Shelf s = (Shelf)c.getContents();
+		int d = floor.getDistance(s.home,picker,true);
+		if (d < 0) continue;  // cannot be carried to the Picker
+		costs.put(index(s.home),d);
+		bycost.add(s);
+	    }
+	  }
+	Collections.sort(bycost,new Comparator<Shelf>() {
+	  public int compare(Shelf s, Shelf t) {
+		return Integer.compare(cost(s),cost(t));
+		}
+	  });
+	picks = new IntIntMap();
+	classes = new IntIntMap();
+	targets = new IntIntMap();
+	moves = new ArrayDeque<Integer>();
+    }
+  private int index(Point p) {
+	return p.x*floor.getWarehouseDepth() + p.y;
+    }
+
+  /**
+   * @return steps from the home of Shelf s to the Picker
+   */
+  public int cost(Shelf s) {
+	return costs.get(index(s.home),Integer.MAX_VALUE);
+    }
+  /**
+   * @return ABC class of SKU number sku
+   */
+  public int classOf(int sku) {
+	return classes.get(sku,C);
+    }
+  /**
+   * @return the Shelf an A SKU should be on, or null for other SKUs
+   */
+  public Shelf target(int sku) {
+	int k = targets.get(sku,-1);
+	return (k < 0) ? null : bycost.get(k);
+    }
+
+  /**
+   * Inventory calls this for each unit picked, from Shelf s
+   */
+  void picked(int sku, Shelf s) {
+	picks.add(sku,1);
+	totalpicks++;
+	if (cost(s) == Integer.MAX_VALUE) return;
+	tripsteps += cost(s);
+	trips++;
+    }
+
+  public void tick(int count) {
+	if (count > 0 && count % RECLASSIFY == 0 && totalpicks > 0) classify();
+	if (moves.isEmpty() || inventory.replenisher.moving() >= MAXMOVES) return;
+	RobotScheduler R = inventory.replenisher.scheduler;
+	if (R == null || R.idleRobots() == 0) return;
+	// look at one SKU per tick, and move it off one far shelf
+	int sku = moves.pollFirst();
+	for (Shelf s: inventory.shelvesHolding(sku).keySet()) {
+	  if (!far(sku,s)) continue;
+	  // move every A SKU that is far from its target off s,
+	  // so the trip to the dock is shared
+	  IntIntMap asked = new IntIntMap();
+	  for (Item e: inventory.onShelf(s)) {
+		if (asked.containsKey(e.id) || !far(e.id,s)) continue;
+		asked.put(e.id,1);
+		inventory.replenisher.relocate(e.id,s,target(e.id));
+	    }
+	  moves.addLast(sku);  // it may be on other far shelves too
+	  return;
+	  }
+    }
+  /**
+   * @return true if Shelf s, resting at home, is worth moving
+   * SKU number sku off
+   */
+  private boolean far(int sku, Shelf s) {
+	Shelf t = target(sku);
+	return t != null && s != t && s.onFloor() && cost(s) > cost(t)+MINGAIN;
+    }
+
+  /**
+   * Sort SKUs into ABC classes by how many units were picked,
+   * give each A SKU its target shelf, and start moving them
+   */
+  public void classify() {
+	// sort SKU numbers by picks, packing picks above SKU number
+	long[] order = new long[picks.size()];
+	int n = 0;
+	for (int i=0; i<picks.capacity(); i++) {
+	  if (picks.usedAt(i)) order[n++] = ((long)picks.valueAt(i) << 32) | (picks.keyAt(i) & 0xffffffffL);
+	  }
+	Arrays.sort(order);
+	classes = new IntIntMap(n);
+	targets = new IntIntMap(n);
+	moves.clear();
+	long saving = 0, sofar = 0;
+	int acount = 0;
+	for (int i=n-1; i>=0; i--) {
+	  int sku = (int)order[i], count = (int)(order[i] >>> 32);
+	  int c = (sofar < ASHARE*totalpicks) ? A : (sofar < BSHARE*totalpicks) ? B : C;
+	  sofar += count;
+	  if (c == C) continue;
+	  classes.put(sku,c);
+	  if (c != A || acount/SKUSPERSHELF >= bycost.size()) continue;
+	  targets.put(sku,acount/SKUSPERSHELF);
+	  acount++;
+	  moves.addLast(sku);
+	  Shelf now = inventory.findItem(new Item(sku,null));
+	  if (now != null) saving += (long)count*Math.max(0,cost(now)-cost(target(sku)));
+	  }
+	expected = (double)saving/totalpicks;
+	if (baseline < 0 && trips > 0) baseline = averageTrip();
+	tripsteps = 0;
+	trips = 0;
+    }
+
+  /**
+   * @return average steps from Shelf to Picker of the units
+   * picked since the last classification
+   */
+  public double averageTrip() {
+	return (trips == 0) ? 0 : (double)tripsteps/trips;
+    }
+  /**
+   * @return reduction in average steps per trip that the last
+   * classification expects once its moves are done
+   */
+  public double expectedReduction() {
+	return expected;
+    }
+  /**
+   * @return reduction in average steps per trip, from before the
+   * first classification to the picks since the latest one
+   */
+  public double achievedReduction() {
+	if (baseline < 0 || trips == 0) return 0;
+	return baseline - averageTrip();
+    }
+  public String report() {
+	return String.format("slotting: expected %.1f, achieved %.1f fewer steps per trip",
+			expectedReduction(),achievedReduction());
+    }
+  }
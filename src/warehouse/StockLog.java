@@ -0,0 +1,218 @@
+package warehouse;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ *
+ * StockLog keeps the stock of a MockInventory on disk, so that a long
+ * run can be restarted where it stopped. Every change to the stock is
+ * appended to a write-ahead log as a RECORD-byte record (what happened,
+ * the SKU number, and the floor index of the Shelf's home), and every
+ * SNAPSHOTGAP ticks the whole stock is written to a snapshot. Each
+ * snapshot has a generation number and starts a new log file for
+ * that generation, so recovery is: load the snapshot, replay the log
+ * of its generation, and carry on.
+ *
+ * Records are not written one at a time. They collect in a buffer of
+ * BATCH bytes, which is written out once per tick (or when it fills),
+ * so logging costs a few array stores per change and one write per
+ * tick. The log is only forced to the disk if sync is set; without it
+ * a crash of the program loses nothing, but a crash of the machine
+ * can lose the last writes.
+ *
+ * Orders are not logged, so a recovered inventory has no reserved
+ * units: reserve and release are logged, but only take and add
+ * change what is on a Shelf, and only they are replayed.
+ *
+ * The directory holds:
+ *
+ *   snapshot   MAGIC, generation, unit count, then SKU number and
+ *              shelf index of each unit, all big-endian ints
+ *   log.G      records logged since the snapshot of generation G
+ *
+ */
+public class StockLog {
+  static final int MAGIC = 0x57485331;  // "WHS1"
+  static final byte ADD = 1, RESERVE = 2, RELEASE = 3, TAKE = 4;
+  static final int RECORD = 9;          // bytes in a log record
+  static final int BATCH = 1<<16;       // bytes of records written at once
+  static final int SNAPSHOTGAP = 5000;  // ticks between snapshots
+
+  final Path directory;
+  final boolean sync;      // true to force each batch to the disk
+  MockInventory inventory;
+  private int depth;       // to number shelves by the floor index of home
+  private int generation;  // of the latest snapshot
+  private FileChannel log;
+  private ByteBuffer batch;
+  long records;            // records logged
+  long snapshots;          // snapshots written
+
+  /**
+   * Start logging the stock of inventory in directory, which
+   * begins with a snapshot of the stock as it is now
+   */
+  public StockLog(MockInventory inventory, String directory, boolean sync) throws IOException {
+	this(inventory,Paths.get(directory),sync,0);
+    }
+  private StockLog(MockInventory inventory, Path directory, boolean sync, int generation) throws IOException {
+	this.inventory = inventory;
+	this.directory = directory;
+	this.sync = sync;
+	this.generation = generation;
+	depth = inventory.floor.getWarehouseDepth();
+	batch = ByteBuffer.allocateDirect(BATCH);
+	Files.createDirectories(directory);
+	snapshot();
+	inventory.log = this;
+    }
+
+  /**
+   * Log one change of stock: op of a unit of SKU sku on Shelf s
+   */
+  void record(byte op, int sku, Shelf s) {
+	if (batch.remaining() < RECORD) flush();
+	batch.put(op).putInt(sku).putInt(index(s.home));
+	records++;
+    }
+  private int index(Point p) {
+	return p.x*depth + p.y;
+    }
+
+  /**
+   * Write out the records of this tick, and every SNAPSHOTGAP
+   * ticks write a snapshot
+   */
+  public void tick(int count) {
+	if (count > 0 && count % SNAPSHOTGAP == 0) {
+	  try {
+		snapshot();
+	    }
+	  catch (IOException e) {
+		throw new UncheckedIOException(e);
+	    }
+	  }
+	else flush();
+    }
+  /**
+   * Write the buffered records to the log
+   */
+  public void flush() {
+	if (batch.position() == 0) return;
+	batch.flip();
+	try {
+	  while (batch.hasRemaining()) log.write(batch);
+	  if (sync) log.force(false);
+	  }
+	catch (IOException e) {
+	  throw new UncheckedIOException(e);
+	  }
+	batch.clear();
+    }
+  /**
+   * Write out the log, and close it
+   */
+  public void close() throws IOException {
+	flush();
+	log.close();
+	if (inventory.log == this) inventory.log = null;
+    }
+
+  /**
+   * Write a snapshot of the stock, as the next generation, and
+   * start the log of that generation; the snapshot is written to
+   * a new file and then renamed, so a crash while writing it
+   * leaves the previous snapshot and log in place
+   */
+  void snapshot() throws IOException {
+	if (log != null) {
+	  flush();
+	  log.close();
+	  }
+	int next = generation+1;
+	Path temporary = directory.resolve("snapshot.new");
+	try (FileChannel ch = FileChannel.open(temporary,StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING)) {
+	  ByteBuffer buf = ByteBuffer.allocateDirect(BATCH);
+	  buf.putInt(MAGIC).putInt(next).putInt(inventory.stock.size());
+	  for (Item e: inventory.stock) {
+		if (buf.remaining() < 8) write(ch,buf);
+		buf.putInt(e.id).putInt(index(e.place.home));
+		}
+	  write(ch,buf);
+	  ch.force(false);
+	  }
+	log = FileChannel.open(directory.resolve("log."+next),StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING);
+	Files.move(temporary,directory.resolve("snapshot"),
+			StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+	Files.deleteIfExists(directory.resolve("log."+generation));
+	generation = next;
+	snapshots++;
+    }
+  private static void write(FileChannel ch, ByteBuffer buf) throws IOException {
+	buf.flip();
+	while (buf.hasRemaining()) ch.write(buf);
+	buf.clear();
+    }
+
+  /**
+   * Rebuild a MockInventory from the snapshot and log in directory,
+   * and go on logging its stock there
+   * @param floor is a Floor with every Shelf at home, laid out
+   * like the Floor of the inventory that was logged
+   * @return the inventory, as of the last record in the log
+   */
+  public static MockInventory recover(String directory, Floor floor, SimRandom rand,
+		  Catalog catalog, boolean sync) throws IOException {
+	Path dir = Paths.get(directory);
+	MockInventory I = new MockInventory(floor,rand,catalog,false);
+	int depth = floor.getWarehouseDepth();
+	int generation;
+	try (FileChannel ch = FileChannel.open(dir.resolve("snapshot"),StandardOpenOption.READ)) {
+	  MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY,0,ch.size());
+	  try {
+		if (map.getInt() != MAGIC) throw new IllegalArgumentException("not a stock snapshot");
+		generation = map.getInt();
+		int count = map.getInt();
+		for (int i=0; i<count; i++) {
+		  int sku = map.getInt();
+		  I.addItem(new Item(sku,catalog.describe(sku)),shelf(floor,depth,map.getInt()));
+		  }
+	    }
+	  catch (BufferUnderflowException e) {
+		throw new IllegalArgumentException("stock snapshot is cut short");
+	    }
+	  }
+	Path logfile = dir.resolve("log."+generation);
+	if (Files.exists(logfile)) {
+	  try (FileChannel ch = FileChannel.open(logfile,StandardOpenOption.READ)) {
+		MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY,0,ch.size());
+		// a record cut short by a crash is not replayed
+		while (map.remaining() >= RECORD) {
+		  byte op = map.get();
+		  int sku = map.getInt();
+		  Shelf s = shelf(floor,depth,map.getInt());
+		  if (op == ADD) I.addItem(new Item(sku,catalog.describe(sku)),s);
+		  else if (op == TAKE) {
+			if (!I.drop(sku,s)) throw new IllegalArgumentException("log takes a unit that is not there");
+		    }
+		  else if (op != RESERVE && op != RELEASE) break;  // torn write
+		  }
+	    }
+	  }
+	new StockLog(I,dir,sync,generation);
+	return I;
+    }
+  /**
+   * @return the Shelf whose home has floor index n
+   */
+  private static Shelf shelf(Floor floor, int depth, int n) {
+	Object c = floor.getCell(n/depth,n%depth).getContents();
+	if (!(c instanceof Shelf)) throw new IllegalArgumentException("no shelf at index "+n);
+	return (Shelf)c;
+    }
+  }
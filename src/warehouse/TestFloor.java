@@ -2,6 +2,9 @@ package warehouse;
 
 import static org.junit.Assert.*;
 
+import java.io.*;
+import java.util.*;
+
 import org.junit.Test;
 
 public class TestFloor {
@@ -40,4 +43,200 @@ public class TestFloor {
 	assertTrue(O instanceof Shelf);
     }
 
+  /**
+   * Test that getCell(x,y) and getCell(Point) give the same
+   * Cell, and that places off the floor give null
+   */
+  @Test
+  public void test004() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	Cell C = F.getCell(57,133);
+	assertTrue(C == F.getCell(new Point(57,133)));
+	assertTrue(C.equals(new Point(57,133)));
+	assertTrue(F.getCell(158,100) == F.getShelfArea(0).getCell(new Point(158,100)));
+	assertNull(F.getCell(-1,0));
+	assertNull(F.getCell(0,F.getWarehouseDepth()));
+	assertNull(F.getCell(F.getWarehouseWidth(),0));
+    }
+
+  /**
+   * Test that equal Points hash alike and that neighbor
+   * stepping gives the canonical Cell of the floor
+   */
+  @Test
+  public void test005() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	Set<Point> S = new HashSet<Point>();
+	S.add(new Point(3,4));
+	assertTrue(S.contains(new Point(3,4)));
+	assertTrue(S.contains(F.getCell(3,4)));
+	assertFalse(S.contains(new Point(4,3)));
+	Point P = new Point(10,10);
+	assertTrue(P.above(F) == F.getCell(9,10));
+	assertTrue(P.below(F) == F.getCell(11,10));
+	assertTrue(P.left(F) == F.getCell(10,9));
+	assertTrue(P.right(F) == F.getCell(10,11));
+	assertNull(new Point(0,5).above(F));
+	assertNull(new Point(5,0).left(F));
+	assertNull(new Point(F.getWarehouseWidth()-1,5).below(F));
+	assertNull(new Point(5,F.getWarehouseDepth()-1).right(F));
+    }
+
+  /**
+   * Test that a ShelfArea finds its cells by position, in
+   * both of its rows, and that the floor uses those cells
+   */
+  @Test
+  public void test006() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	ShelfArea A = F.getShelfArea(1);
+	Point c = A.getCorner();
+	for (int x=c.x; x<c.x+A.getWidth(); x++)
+	  for (int y=c.y-1; y<=c.y; y++) {
+		Cell C = A.getCell(new Point(x,y));
+		assertTrue(C.equals(new Point(x,y)));
+		assertTrue(C == F.getCell(x,y));
+		assertTrue(C.getContents() instanceof Shelf);
+	    }
+	assertNull(A.getCell(new Point(c.x-1,c.y)));
+	assertNull(A.getCell(new Point(c.x,c.y+1)));
+	assertNull(A.getCell(new Point(c.x,c.y-2)));
+	assertNull(A.getCell(new Point(c.x+A.getWidth(),c.y)));
+    }
+
+  /**
+   * Test loading a text layout file, saving it in binary, 
+   * and loading that again; and that Points then stay 
+   * within the bounds of the loaded floor
+   */
+  @Test
+  public void test007() throws IOException {
+	File text = File.createTempFile("layout",".txt");
+	File binary = File.createTempFile("layout",".bin");
+	text.deleteOnExit();
+	binary.deleteOnExit();
+	PrintWriter out = new PrintWriter(text);
+	out.println("# a small warehouse");
+	out.println("size 40 30");
+	out.println("picker 0 25");
+	out.println("packer 0 10");
+	out.println("shippingdock 0 0");
+	out.println("receivingdock 20 0");
+	out.println("charger 5 5   # robots start here");
+	out.println("shelfarea 10 12 20");
+	out.println("shelfarea 10 20 20");
+	out.println("station 35 25");
+	out.close();
+	Floor F = LayoutFloor.load(text.getPath(),new SimRandom());
+	LayoutFloor.save(F,binary.getPath());
+	Floor G = LayoutFloor.load(binary.getPath(),new SimRandom());
+	for (Floor L: new Floor[] { F, G }) {
+	  assertEquals(L.getWarehouseWidth(),40);
+	  assertEquals(L.getWarehouseDepth(),30);
+	  assertTrue(L.getPicker().equals(new Point(0,25)));
+	  assertEquals(L.getPickers().size(),2);
+	  assertTrue(L.getPickers().get(1).equals(new Point(35,25)));
+	  assertTrue(L.getReceivingDock().equals(new Point(20,0)));
+	  assertTrue(L.getCharger().equals(new Point(5,5)));
+	  assertEquals(L.getNumShelfAreas(),2);
+	  assertTrue(L.getCell(29,19).getContents() instanceof Shelf);
+	  assertNull(L.getCell(30,19).getContents());
+	  }
+	// Points step within the floor they are given, whichever
+	// floor was made last
+	Floor M = new MockFloor(new SimRandom());
+	assertNull(new Point(39,3).below(G));
+	assertNull(new Point(3,29).right(G));
+	assertTrue(new Point(38,28).below(G) == G.getCell(39,28));
+	assertTrue(new Point(3,29).right(M) == M.getCell(3,30));
+	// bad layouts, and what is wrong with them
+	String[][] bad = {
+	  { "size 40 30", "shelfarea 10 12" },
+	  { "size 40 30", "shelfarea 10 12 -5" },
+	  { "size 0 30" },
+	  { "size 40 30", "picker 0 25", "packer 0 10", "shippingdock 0 0",
+		"receivingdock 20 0", "charger 5 30" },
+	  { "size 40 30", "picker 0 25", "packer 0 10", "shippingdock 0 0",
+		"receivingdock 20 0", "charger 5 5", "station 40 25" },
+	  { "size 40 30", "picker 0 25", "packer 0 10", "shippingdock 0 0",
+		"receivingdock 20 0", "charger 5 5", "shelfarea 30 12 20" },
+	  { "size 40 30", "picker 0 25", "packer 0 10", "shippingdock 0 0",
+		"receivingdock 20 0", "charger 5 5", "shelfarea 10 12 20", "shelfarea 25 13 5" },
+	  { "size 40 30", "picker 0 25", "packer 0 10", "shippingdock 0 0",
+		"receivingdock 20 0", "charger 5 5", "shelfarea 3 6 5" } };
+	String[] message = { "line 2: shelfarea needs 3 numbers",
+	  "line 2: shelfarea must be positive", "line 1: size must be positive",
+	  "location off the floor: Point x=5 y=30", "location off the floor: Point x=40 y=25",
+	  "shelfarea off the floor: Point x=30 y=12", "shelfareas overlap: Point x=25 y=12",
+	  "shelfarea covers a location: Point x=5 y=5" };
+	for (int k=0; k<bad.length; k++) {
+	  out = new PrintWriter(text);
+	  for (String line: bad[k]) out.println(line);
+	  out.close();
+	  try {
+		LayoutFloor.load(text.getPath(),new SimRandom());
+		fail("bad layout was loaded");
+	    }
+	  catch (IllegalArgumentException e) {
+		assertEquals(e.getMessage(),message[k]);
+	    }
+	  }
+	// binary layouts are checked too: a shelf area of width -5,
+	// and a picker off the floor
+	int[][] badbinary = {
+	  { 40,30, 0,25, 0,10, 0,0, 20,0, 5,5, 1, 10,12,-5, 0 },
+	  { 40,30, 0,99, 0,10, 0,0, 20,0, 5,5, 0, 0 } };
+	message = new String[] { "shelfarea width must be positive",
+	  "location off the floor: Point x=0 y=99" };
+	for (int k=0; k<badbinary.length; k++) {
+	  DataOutputStream data = new DataOutputStream(new FileOutputStream(binary));
+	  data.writeInt(LayoutFloor.MAGIC);
+	  for (int v: badbinary[k]) data.writeInt(v);
+	  data.close();
+	  try {
+		LayoutFloor.load(binary.getPath(),new SimRandom());
+		fail("bad binary layout was loaded");
+	    }
+	  catch (IllegalArgumentException e) {
+		assertEquals(e.getMessage(),message[k]);
+	    }
+	  }
+    }
+  /**
+   * Test that a ShelfArea that does not fit is turned away
+   * without changing the floor, and that an area hanging off
+   * the floor can be removed
+   */
+  @Test
+  public void test008() {
+	SimRandom randomsource = new SimRandom();
+	List<ShelfArea> areas = new ArrayList<ShelfArea>();
+	ShelfArea hanging = new ShelfArea(new Point(30,10),20,randomsource);
+	areas.add(hanging);
+	GridFloor F = new GridFloor(40,30,new Point(0,25),new Point(0,10),new Point(0,0),
+			new Point(20,0),new Point(5,5),areas,randomsource);
+	ShelfArea[] bad = {
+	  new ShelfArea(new Point(35,20),10,randomsource),   // partly off the floor
+	  new ShelfArea(new Point(25,10),10,randomsource),   // overlaps hanging
+	  new ShelfArea(new Point(0,26),10,randomsource) };  // covers the picker
+	for (ShelfArea a: bad) {
+	  try {
+		F.addShelfArea(a);
+		fail("bad ShelfArea was added");
+	    }
+	  catch (IllegalArgumentException e) { }
+	  }
+	assertEquals(F.getNumShelfAreas(),1);
+	assertNull(F.getCell(36,20).getContents());
+	assertFalse(F.shelfsquares.get(F.index(36,20)));
+	assertNull(F.getCell(25,10).getContents());
+	assertTrue(F.getCell(35,10).getContents() instanceof Shelf);
+	F.removeShelfArea(hanging);
+	assertEquals(F.getNumShelfAreas(),0);
+	assertNull(F.getCell(35,10).getContents());
+	assertFalse(F.shelfsquares.get(F.index(35,10)));
+    }
   }
@@ -13,7 +13,7 @@ public class TestMaster {
 	RobotScheduler R = new MockRobotScheduler(F);
 	Belt B = new MockBelt(F);
 	Visualizer V = new MockVisualizer(F);
-	Inventory I = new MockInventory(F,randomsource);
+	Inventory I = new MockInventory(F,randomsource,R);
 	Orders O = new MockOrders(I,R,randomsource);
 	Master T = new Master(F,R,I,O,B,V);
 	T.Run(100);
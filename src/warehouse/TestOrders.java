@@ -0,0 +1,335 @@
+package warehouse;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestOrders {
+  /**
+   * Test that orders are filled one at a time, each item
+   * taken off the Shelf it was reserved on
+   */
+  @Test
+  public void test001() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	MockInventory I = new MockInventory(F,randomsource);
+	MockRobotScheduler R = new MockRobotScheduler(F,8);
+	I.setRobotScheduler(R);
+	MockOrders O = new MockOrders(I,R,randomsource);
+	int before = I.stock.size();
+	for (int i=0; i<5000 && O.pending() > 0; i++) {
+	  R.tick(i);
+	  O.tick(i);
+	  I.tick(i);
+	  }
+	assertEquals(O.pending(),0);
+	assertEquals(O.filled,3);
+	assertTrue(O.trips >= 3);
+	assertTrue(I.stock.size() < before);
+    }
+  /**
+   * Test that a wave picks the orders sharing two shelves with
+   * two Shelf trips, where one order at a time takes two trips
+   * per order
+   */
+  @Test
+  public void test002() {
+	assertEquals(waveTrips(1),12);
+	assertEquals(waveTrips(6),2);
+    }
+  /**
+   * @return Shelf trips taken by six orders, each wanting one
+   * item from each of two shelves, in waves of wavesize
+   */
+  private int waveTrips(int wavesize) {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	MockInventory I = new MockInventory(F,randomsource);
+	MockRobotScheduler R = new MockRobotScheduler(F,8);
+	I.setRobotScheduler(R);
+	MockOrders O = new MockOrders(I,R,randomsource);
+	int i = run(R,O,I,0);  // finish the first orders
+	Shelf s = (Shelf)F.getCell(40,140).getContents();
+	Shelf t = (Shelf)F.getCell(100,100).getContents();
+	for (int k=1; k<=6; k++) {
+	  I.addItem(new Item(-k,"near"),s);
+	  I.addItem(new Item(-10-k,"far"),t);
+	  OrderItem[] items = { new OrderItem(-k,"near"), new OrderItem(-10-k,"far") };
+	  O.addOrder(new Order("address",items));
+	  }
+	O.setWaveSize(wavesize);
+	int trips = O.trips;
+	run(R,O,I,i);
+	assertEquals(O.filled,9);
+	return O.trips - trips;
+    }
+  /**
+   * Test that rush orders, and orders with little slack, go
+   * ahead of bulk orders queued before them, that a rush order
+   * joins a running wave of a bulk order, and that orders filled
+   * after their due tick are counted late
+   */
+  @Test
+  public void test003() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	MockInventory I = new MockInventory(F,randomsource);
+	MockRobotScheduler R = new MockRobotScheduler(F,2);
+	I.setRobotScheduler(R);
+	MockOrders O = new MockOrders(I,R,randomsource);
+	int i = run(R,O,I,0);
+	Order bulk = order(I,F,-100,8,Order.BULK,-1);
+	Order missed = order(I,F,-200,1,Order.STANDARD,i-1);
+	Order rush = order(I,F,-300,1,Order.RUSH,-1);
+	O.addOrder(bulk);
+	O.addOrder(missed);
+	O.addOrder(rush);
+	assertEquals(rush.due,rush.arrival+Order.SLA[Order.RUSH]);
+	i = run(R,O,I,i);
+	assertTrue(rush.filledat < bulk.filledat);
+	assertTrue(missed.filledat < bulk.filledat);
+	assertTrue(missed.isLate());
+	assertFalse(rush.isLate() || bulk.isLate());
+	assertEquals(O.late,1);
+	// a rush order arriving during a bulk wave is not held up
+	bulk = order(I,F,-400,8,Order.BULK,-1);
+	O.addOrder(bulk);
+	for (int k=0; k<5; k++, i++) { R.tick(i); O.tick(i); I.tick(i); }
+	rush = order(I,F,-500,1,Order.RUSH,-1);
+	O.addOrder(rush);
+	run(R,O,I,i);
+	assertTrue(rush.filledat < bulk.filledat);
+	assertFalse(rush.isLate());
+    }
+  /**
+   * Test that OrderGenerator makes orders at the mean rate, of
+   * the sizes asked for, with popular SKUs picked more, in bursts
+   * when asked, and that MockOrders queues what it makes
+   */
+  @Test
+  public void test004() {
+	SimRandom randomsource = new SimRandom();
+	OrderGenerator G = new OrderGenerator(Catalog.standard(),randomsource);
+	G.setPoisson(3.0);
+	G.setSizes(new double[] { 0, 0, 1 });
+	G.setZipf(1.2);
+	int total = 0, top = 0, tenth = 0;
+	for (int i=0; i<10000; i++) {
+	  for (int n = G.arrivals(); n > 0; n--) {
+		Order o = G.next();
+		total++;
+		assertEquals(o.getOrderItems().length,3);
+		assertEquals(o.getPriority(),Order.STANDARD);
+		assertEquals(o.getAddress().split("\n").length,3);
+		for (OrderItem e: o.getOrderItems()) {
+		  if (e.id == Catalog.standard().sku(G.ranked(0))) top++;
+		  if (e.id == Catalog.standard().sku(G.ranked(10))) tenth++;
+		  }
+	    }
+	  }
+	assertTrue(Math.abs(total-30000) < 900);
+	assertTrue(top > 5*tenth && tenth > 0);
+	// bursts make the count per tick vary more than Poisson
+	G.setBursty(0.5,10,0.01);
+	double sum = 0, squares = 0;
+	for (int i=0; i<10000; i++) {
+	  int n = G.arrivals();
+	  sum += n;
+	  squares += (double)n*n;
+	  }
+	double mean = sum/10000;
+	assertTrue(squares/10000 - mean*mean > 2*mean);
+	// an address from given bits is the same every time
+	Address A = new Address(randomsource);
+	assertEquals(A.randomAddress(12345L),A.randomAddress(12345L));
+	Floor F = new MockFloor(randomsource);
+	MockInventory I = new MockInventory(F,randomsource);
+	MockOrders O = new MockOrders(I,new MockRobotScheduler(F,8),randomsource);
+	G.setPoisson(2.0);
+	O.setGenerator(G);
+	long before = G.generated;
+	for (int i=0; i<100; i++) O.tick(i);
+	assertTrue(G.generated - before > 150);
+	assertTrue(O.pending() > 150);
+    }
+  /**
+   * Test that ReplayOrders hands recorded orders to the Picker no
+   * sooner than their ticks, reads no more than its read-ahead, and
+   * holds orders back while the Picker is saturated
+   */
+  @Test
+  public void test005() throws java.io.IOException {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	MockInventory I = new MockInventory(F,randomsource);
+	MockRobotScheduler R = new MockRobotScheduler(F,8);
+	I.setRobotScheduler(R);
+	MockOrders O = new MockOrders(I,R,randomsource);
+	int i = run(R,O,I,0);
+	int first = I.stock.get(I.stock.size()-1).id;
+	java.io.File file = java.io.File.createTempFile("replay",".csv");
+	file.deleteOnExit();
+	try (java.io.PrintWriter out = new java.io.PrintWriter(file)) {
+	  out.println("# tick,SKU numbers,priority,address");
+	  for (int k=0; k<40; k++) {
+		int sku = I.stock.get(I.stock.size()-1-k).id;
+		if (k % 10 == 0) out.println((i+k)+","+sku+",RUSH,Emma Smith|12 Park Road");
+		else out.println((i+k)+","+sku);
+		if (k == 20) out.println();
+	    }
+	  }
+	ReplayOrders P = new ReplayOrders(file.getPath(),O,I.catalog,4,2);
+	for (int limit = i+20000; i<limit && !(P.finished() && O.pending() == 0); i++) {
+	  R.tick(i);
+	  P.tick(i);
+	  I.tick(i);
+	  assertTrue(P.buffered() <= 4);
+	  assertTrue(O.pending() <= 2);
+	  }
+	assertTrue(P.finished());
+	assertEquals(O.pending(),0);
+	assertEquals(P.released,40);
+	assertEquals(O.filled,43);
+	assertTrue(P.delayed > 0);
+	// read straight through, an order keeps what was recorded
+	P = new ReplayOrders(file.getPath(),O,I.catalog);
+	Order o = P.getRandomOrder();
+	assertEquals(o.getPriority(),Order.RUSH);
+	assertEquals(o.getAddress(),"Emma Smith\n12 Park Road");
+	assertEquals(o.getOrderItems()[0].id,first);
+	assertEquals(P.getRandomOrder().getPriority(),Order.STANDARD);
+	// handed to the Picker later, an order keeps its recorded arrival
+	int recorded = o.arrival;
+	assertTrue(recorded < i-1);
+	O.addOrder(o);
+	assertEquals(o.arrival,recorded);
+	assertEquals(o.due,recorded+Order.SLA[Order.RUSH]);
+	// an unknown SKU, or a negative tick, is an error in the file
+	String[] bad = { "5,"+first+" 999999999", "-3,"+first };
+	String[] message = { "line 1: unknown SKU 999999999", "line 1: negative tick" };
+	for (int k=0; k<bad.length; k++) {
+	  try (java.io.PrintWriter out = new java.io.PrintWriter(file)) {
+		out.println(bad[k]);
+	    }
+	  P = new ReplayOrders(file.getPath(),O,I.catalog);
+	  try {
+		P.getRandomOrder();
+		fail("bad recording was read");
+	    }
+	  catch (IllegalArgumentException e) {
+		assertEquals(e.getMessage(),message[k]);
+	    }
+	  }
+    }
+  /**
+   * Test that OrderRouter sends an order to the station nearest
+   * its Shelf, unless that station is busier, and that orders are
+   * filled faster with four stations than with one
+   */
+  @Test
+  public void test006() {
+	SimRandom randomsource = new SimRandom();
+	GridFloor F = new MockFloor(randomsource);
+	F.addPicker(new Point(150,190));
+	MockInventory I = new MockInventory(F,randomsource);
+	OrderRouter O = new OrderRouter(F,I,new MockRobotScheduler(F,8),randomsource);
+	assertEquals(O.stations.length,2);
+	Shelf s = (Shelf)F.getCell(150,160).getContents();
+	I.addItem(new Item(-1,"near"),s);
+	Order o = new Order("address",new OrderItem[] { new OrderItem(-1,"near") });
+	assertEquals(O.route(o),1);
+	for (int k=0; k<3; k++) O.stations[1].addOrder(O.getRandomOrder());
+	assertEquals(O.route(o),0);
+	// a station can't be on the packer, or under a new shelf area
+	try {
+	  F.addPicker(F.getPacker());
+	  fail("picker was put on the packer");
+	  }
+	catch (IllegalArgumentException e) { }
+	try {
+	  F.addShelfArea(new ShelfArea(new Point(148,191),5,randomsource));
+	  fail("shelf area was put on a station");
+	  }
+	catch (IllegalArgumentException e) { }
+	assertEquals(F.getPickers().size(),2);
+	int one = stationTicks(1), four = stationTicks(4);
+	assertTrue(2*four < one);
+    }
+  /**
+   * @return ticks to fill 40 orders, with stations picker
+   * stations along the bottom of the floor and 16 Robots
+   */
+  private int stationTicks(int stations) {
+	SimRandom randomsource = new SimRandom();
+	GridFloor F = new MockFloor(randomsource);
+	for (int k=1; k<stations; k++) F.addPicker(new Point(50*k,190));
+	MockInventory I = new MockInventory(F,randomsource);
+	MockRobotScheduler R = new MockRobotScheduler(F,16);
+	I.setRobotScheduler(R);
+	OrderRouter O = new OrderRouter(F,I,R,randomsource);
+	for (int k=0; k<40; k++) O.addOrder(O.getRandomOrder());
+	int i = 0;
+	for (; i<20000 && O.pending() > 0; i++) {
+	  R.tick(i);
+	  O.tick(i);
+	  I.tick(i);
+	  }
+	assertEquals(O.filled(),40);
+	for (int k=0; k<stations; k++) assertTrue(O.routed[k] > 0);
+	return i;
+    }
+  /**
+   * Test that a rush order joins a running bulk wave at once,
+   * even when an overdue standard order is queued ahead of it
+   */
+  @Test
+  public void test007() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	MockInventory I = new MockInventory(F,randomsource);
+	MockRobotScheduler R = new MockRobotScheduler(F,2);
+	I.setRobotScheduler(R);
+	MockOrders O = new MockOrders(I,R,randomsource);
+	int i = run(R,O,I,0);
+	Order bulk = order(I,F,-100,8,Order.BULK,-1);
+	O.addOrder(bulk);
+	for (int k=0; k<5; k++, i++) { R.tick(i); O.tick(i); I.tick(i); }
+	Order overdue = order(I,F,-200,1,Order.STANDARD,i-1);
+	Order rush = order(I,F,-300,1,Order.RUSH,-1);
+	O.addOrder(overdue);
+	O.addOrder(rush);
+	run(R,O,I,i);
+	assertTrue(rush.filledat < bulk.filledat);
+	assertFalse(rush.isLate());
+	assertTrue(overdue.filledat > bulk.filledat);  // waits for the next wave
+    }
+  /**
+   * @return an order of count new SKUs, numbered down from sku,
+   * each stocked on its own Shelf (far from the Picker for bulk
+   * orders, near it for the others)
+   */
+  private Order order(MockInventory I, Floor F, int sku, int count, int priority, int due) {
+	OrderItem[] items = new OrderItem[count];
+	for (int k=0; k<count; k++) {
+	  int x = (priority == Order.BULK) ? 100+4*k : 20-sku/100;
+	  int y = (priority == Order.BULK) ? 100 : 160;
+	  while (!(F.getCell(x,y).getContents() instanceof Shelf)) x++;  // skip carried shelves
+	  I.addItem(new Item(sku-k,"test"),(Shelf)F.getCell(x,y).getContents());
+	  items[k] = new OrderItem(sku-k,"test");
+	  }
+	return new Order("address",items,priority,due);
+    }
+  /**
+   * @return tick after all pending orders are filled
+   */
+  private int run(MockRobotScheduler R, MockOrders O, MockInventory I, int i) {
+	for (int limit = i+10000; i<limit && O.pending() > 0; i++) {
+	  R.tick(i);
+	  O.tick(i);
+	  I.tick(i);
+	  }
+	assertEquals(O.pending(),0);
+	return i;
+    }
+  }
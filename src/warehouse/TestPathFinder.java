@@ -0,0 +1,244 @@
+package warehouse;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+public class TestPathFinder {
+
+  /**
+   * Test that a path with nothing in the way is as
+   * short as the Manhattan distance, and every step 
+   * goes to a neighboring square
+   */
+  @Test
+  public void test001() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	List<Point> L = F.getPath(F.getCharger(),F.getPicker());
+	Point s = F.getCharger(), t = F.getPicker();
+	assertEquals(L.size(),1+Math.abs(s.x-t.x)+Math.abs(s.y-t.y));
+	assertTrue(L.get(0).equals(s));
+	assertTrue(L.get(L.size()-1).equals(t));
+	for (int i=1;i<L.size();i++) {
+	  Point a = L.get(i-1), b = L.get(i);
+	  assertEquals(Math.abs(a.x-b.x)+Math.abs(a.y-b.y),1);
+	  }
+    }
+  /**
+   * Test that a Robot carrying a Shelf from its home to the
+   * Picker only passes through shelf area squares at the start
+   */
+  @Test
+  public void test002() {
+	SimRandom randomsource = new SimRandom();
+	Floor F = new MockFloor(randomsource);
+	Point home = new Point(34,100);
+	List<Point> L = F.getPath(home,F.getPicker(),true);
+	assertNotNull(L);
+	for (int i=1;i<L.size();i++) {
+	  for (int j=0;j<F.getNumShelfAreas();j++) {
+		assertFalse(F.getShelfArea(j).hasWithin(L.get(i)));
+	    }
+	  }
+	// the shelf at (34,160) can only be carried out below its
+	// shelf area, and (34,139) only entered from above, so the
+	// path goes around the west end of both shelf areas
+	L = F.getPath(new Point(34,160),new Point(34,139),true);
+	assertEquals(L.size(),1+(1+15+23+15+1));
+    }
+  /**
+   * Test a search across a 10000x10000 grid laid out like a
+   * warehouse: pairs of shelf rows with an aisle between
+   * pairs, and a cross aisle every 100 squares
+   */
+  @Test
+  public void test003() {
+	int n = 10000;
+	PathFinder P = new PathFinder(n,n);
+	BitSet shelves = new BitSet();
+	for (int x=0;x<n;x++) {
+	  if (x%100 == 0) continue;  // cross aisle
+	  for (int y=5;y<n-5;y+=3) {
+		shelves.set(x*n+y); shelves.set(x*n+y+1);
+	    }
+	  }
+	int start = 50*n+3, goal = (n-50)*n+(n-3);
+	int[] path = P.search(start,goal,shelves);
+	assertNotNull(path);
+	assertEquals(path.length,1+(n-100)+(n-6));
+	for (int v: path) assertFalse(v != start && v != goal && shelves.get(v));
+    }
+  /**
+   * Test that search gives null when a wall cuts the
+   * goal off from the start
+   */
+  @Test
+  public void test004() {
+	int n = 300;
+	PathFinder P = new PathFinder(n,n);
+	BitSet wall = new BitSet();
+	for (int y=0;y<n;y++) wall.set(150*n+y);
+	assertNull(P.search(10*n+10,(n-10)*n+10,wall));
+	wall.clear(150*n+(n-1));  // one gap
+	assertEquals(P.search(10*n+10,(n-10)*n+10,wall).length,
+			1+(n-20)+2*(n-1-10));
+    }
+  /**
+   * Test that paths and distances to the fixed destinations,
+   * which come from flow fields, agree with A* search
+   */
+  @Test
+  public void test005() {
+	SimRandom randomsource = new SimRandom();
+	GridFloor F = new MockFloor(randomsource);
+	PathFinder P = new PathFinder(F.getWarehouseWidth(),F.getWarehouseDepth());
+	Point[] homes = { new Point(34,100), new Point(34,159), 
+			new Point(159,140), new Point(7,3) };
+	Point[] goals = { F.getPicker(), F.getReceivingDock(), F.getCharger() };
+	for (Point h: homes)
+	  for (Point g: goals) {
+		int[] steps = P.search(F.index(h.x,h.y),F.index(g.x,g.y),F.shelfsquares);
+		assertEquals(F.getDistance(h,g,true),steps.length-1);
+		List<Point> L = F.getPath(h,g,true);
+		assertEquals(L.size(),steps.length);
+		assertTrue(L.get(0).equals(h));
+		assertTrue(L.get(L.size()-1).equals(g));
+		for (int i=1;i<L.size();i++) {
+		  Point a = L.get(i-1), b = L.get(i);
+		  assertEquals(Math.abs(a.x-b.x)+Math.abs(a.y-b.y),1);
+		  assertFalse(F.shelfsquares.get(F.index(b.x,b.y)));
+		  }
+	    }
+    }
+  /**
+   * Test that flow fields, and the carrying fields kept for
+   * other goals, follow a change in the layout
+   */
+  @Test
+  public void test006() {
+	SimRandom randomsource = new SimRandom();
+	GridFloor F = new MockFloor(randomsource);
+	Point s = new Point(20,185);
+	assertEquals(F.getDistance(s,F.getPicker(),true),20+5);
+	FlowField H = F.carryingField(F.index(60,160));
+	assertTrue(F.carryingField(F.index(60,160)) == H);
+	// a new shelf area across the way to the picker
+	ShelfArea A = new ShelfArea(new Point(0,188),141,randomsource);
+	F.addShelfArea(A);
+	assertEquals(F.getDistance(s,F.getPicker(),true),20+5+2*(141-20));
+	assertTrue(F.carryingField(F.index(60,160)) != H);
+	F.removeShelfArea(A);
+	assertEquals(F.getDistance(s,F.getPicker(),true),20+5);
+    }
+  /**
+   * Test that repeated trips are served from the path cache,
+   * that cached paths can't be changed, and that a layout
+   * change empties the cache
+   */
+  @Test
+  public void test007() {
+	SimRandom randomsource = new SimRandom();
+	GridFloor F = new MockFloor(randomsource);
+	PathCache C = F.getPathCache();
+	Point home = new Point(34,100), other = new Point(120,140);
+	List<Point> L = F.getPath(home,other,true);
+	assertEquals(C.getMisses(),1);
+	assertTrue(F.getPath(home,other,true) == L);
+	assertEquals(C.getHits(),1);
+	F.getPath(home,other,false);  // not the same key
+	assertEquals(C.getMisses(),2);
+	try {
+	  L.remove(0);
+	  fail("cached path was changed");
+	  }
+	catch (UnsupportedOperationException e) { }
+	F.addShelfArea(new ShelfArea(new Point(0,188),141,randomsource));
+	assertEquals(C.size(),0);
+    }
+  /**
+   * Test that a CompactPath gives back the squares it was 
+   * made from, and that the cache stays within budget
+   */
+  @Test
+  public void test008() {
+	SimRandom randomsource = new SimRandom();
+	GridFloor F = new MockFloor(randomsource);
+	PathFinder P = new PathFinder(F.getWarehouseWidth(),F.getWarehouseDepth());
+	int[] steps = P.search(F.index(34,100),F.index(120,140),F.shelfsquares);
+	CompactPath L = F.toPath(steps);
+	assertEquals(L.size(),steps.length);
+	for (int i=0;i<steps.length;i++) {
+	  assertTrue(L.get(i) == F.cells[steps[i]]);
+	  }
+	PathCache C = new PathCache(3*L.footprint());
+	for (long k=0;k<10;k++) C.put(k,L);
+	assertEquals(C.size(),3);
+	assertEquals(C.getEvictions(),7);
+	assertNotNull(C.get(9L));
+	assertNull(C.get(0L));
+    }
+  /**
+   * Test hierarchical search on the same kind of 10000x10000
+   * grid as test003: the path must be a real path and nearly
+   * as short as the shortest, and only tiles near it are used
+   */
+  @Test
+  public void test009() {
+	int n = 10000;
+	BitSet shelves = new BitSet();
+	for (int x=0;x<n;x++) {
+	  if (x%100 == 0) continue;  // cross aisle
+	  for (int y=5;y<n-5;y+=3) {
+		shelves.set(x*n+y); shelves.set(x*n+y+1);
+	    }
+	  }
+	HierarchicalPathFinder H = new HierarchicalPathFinder(n,n,32,shelves);
+	int start = 50*n+3, goal = (n-50)*n+(n-3);
+	HierarchicalPathFinder.Route R = H.search(start,goal);
+	assertNotNull(R);
+	int best = 1+(n-100)+(n-6);
+	assertTrue(R.size() >= best && R.size() <= best+best/100);
+	assertEquals(R.refined(),0);  // nothing filled in yet
+	assertEquals(R.square(0),start);
+	for (int i=1;i<R.size();i++) {
+	  int a = R.square(i-1), b = R.square(i);
+	  assertEquals(Math.abs(a/n-b/n)+Math.abs(a%n-b%n),1);
+	  assertFalse(b != goal && shelves.get(b));
+	  }
+	assertEquals(R.square(R.size()-1),goal);
+	assertTrue(H.tilesBuilt() < (n/32)*(n/32)/50);
+    }
+  /**
+   * Test that a large GridFloor uses hierarchical search for
+   * carrying paths, and that it follows changes in the layout
+   */
+  @Test
+  public void test010() {
+	SimRandom randomsource = new SimRandom();
+	int n = 1024;
+	Point p = new Point(0,n-10), c = new Point(20,20);
+	GridFloor F = new GridFloor(n,n,p,new Point(0,50),new Point(0,0),
+			new Point(80,0),c,new ArrayList<ShelfArea>(),randomsource);
+	assertNotNull(F.clusters);
+	ShelfArea A = new ShelfArea(new Point(0,500),1000,randomsource);
+	F.addShelfArea(A);
+	Point s = new Point(500,300), t = new Point(500,600);
+	List<Point> L = F.getPath(s,t,true);
+	assertTrue(L.size() >= 1+500+300+500 && L.size() <= 1+500+300+500+50);
+	for (int i=1;i<L.size();i++) {
+	  Point a = L.get(i-1), b = L.get(i);
+	  assertEquals(Math.abs(a.x-b.x)+Math.abs(a.y-b.y),1);
+	  assertFalse(A.hasWithin(b));
+	  }
+	int tiles = F.clusters.tilesBuilt();
+	F.removeShelfArea(A);
+	assertTrue(F.clusters.tilesBuilt() < tiles);
+	L = F.getPath(s,t,true);
+	assertTrue(L.size() >= 1+300 && L.size() <= 1+300+50);
+	// a short trip is by A*, so it is a shortest path
+	assertEquals(F.getPath(new Point(500,400),t,true).size(),1+200);
+    }
+  }
@@ -2,6 +2,8 @@ package warehouse;
 
 import static org.junit.Assert.*;
 
+import java.util.*;
+
 import org.junit.Test;
 import org.junit.Before;
 
@@ -100,4 +102,77 @@ public class TestRobotScheduler {
 	assertEquals(LP.r.state,Robot.idle);
 	assertTrue(LP.r.location.equals(F.getCharger()));
     }
-  }
\ No newline at end of file
+  
+  /**
+   * Local Class -- returningPicker, a Picker which 
+   * counts deliveries and sends each Shelf right back
+   */
+  class returningPicker implements Picker {
+	RobotScheduler R;
+	int count = 0;
+	returningPicker(RobotScheduler R) { this.R = R; }
+	public void notify(Robot r, Shelf s) {
+	  count++;
+	  R.returnShelf(r);
+	  }
+    }
+
+  /**
+   * Run a fleet of Robots fetching shelves for the Picker,
+   * checking at every tick that no two Robots are in one square
+   * @return number of ticks until all shelves came back home
+   */
+  private int runFleet(int robots, int shelves, int limit) {
+	Floor F = new MockFloor(new SimRandom());
+	MockRobotScheduler M = new MockRobotScheduler(F,robots);
+	returningPicker P = new returningPicker(M);
+	List<Shelf> S = new ArrayList<Shelf>();
+	for (int i=0;i<shelves;i++) {
+	  Point p = new Point(25+(7*i)%130,(i%2==0)?100:((i%4==1)?159:140));
+	  Shelf s = (Shelf)F.getCell(p).getContents();
+	  assertNotNull(s);
+	  if (!S.contains(s)) S.add(s);
+	  }
+	for (Shelf s: S) M.requestShelf(s,P);
+	for (int i=0;i<limit;i++) {
+	  M.tick(i);
+	  Set<Point> places = new HashSet<Point>();
+	  boolean busy = false;
+	  for (Robot r: M.robots) {
+		assertTrue(places.add(r.location));
+		Cell c = F.getCell(r.location);
+		assertTrue(c.getContents() == r || c.getShadow() == r);
+		if (r.state != Robot.idle) busy = true;
+	    }
+	  if (P.count == S.size() && !busy) {
+		for (Shelf s: S) {
+		  assertTrue(s.onFloor());
+		  assertTrue(F.getCell(s.home).getContents() == s);
+		  }
+		for (Robot r: M.robots) assertTrue(r.location.equals(r.home));
+		return i;
+	    }
+	  }
+	fail("robots did not finish");
+	return limit;
+    }
+
+  @Test
+  /**
+   * Can eight Robots share the work of fetching shelves
+   * without ever bumping into each other?
+   */
+  public void test004() {
+	int ticks = runFleet(8,24,5000);
+	// one Robot alone needs longer for the same shelves
+	assertTrue(ticks < runFleet(1,24,20000));
+    }
+
+  @Test
+  /**
+   * A larger fleet, with more Robots than shelves requested
+   */
+  public void test005() {
+	runFleet(120,60,5000);
+    }
+  }